@@ -21,6 +21,8 @@ import org.apache.commons.lang.StringUtils;
 
 import eu.ascens_ist.scp.iaas.zimory.ZimoryConnection;
 import eu.ascens_ist.scp.iaas.zimory.ZimoryException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.RoleMailbox.OverflowPolicy;
+import eu.ascens_ist.scp.node.core.strategy.gossip.RoleRunner;
 import eu.ascens_ist.scp.node.logging.LogFactory;
 import eu.ascens_ist.scp.node.logging.Logger;
 
@@ -87,11 +89,116 @@ public class Configuration {
 	 * Port of Node for bootstrapping
 	 */
 	public static int BOOTSTRAP_PORT = 0;
+	/**
+	 * Milliseconds how long outgoing messages to the same node are collected
+	 * into one batch after a message has been sent to it; a message to a node
+	 * nothing has been sent to lately is sent right away. Accurate to one
+	 * {@link #TIMER_TICK_INTERVAL tick} of the timer (0 disables batching)
+	 */
+	public static int MESSAGE_BATCH_WINDOW = 5;
+	/**
+	 * Maximum number of messages in one batch
+	 */
+	public static int MESSAGE_BATCH_MAX_SIZE = 32;
+	/**
+	 * Maximum number of incoming bulk messages (code transfers) waiting to be
+	 * handled; further ones are dropped
+	 */
+	public static int INBOUND_BULK_CAPACITY = 16;
+	/**
+	 * Maximum number of messages queued for one role
+	 */
+	public static int MAILBOX_CAPACITY = 1000;
+	/**
+	 * Milliseconds after which messages not picked up by their role are
+	 * evicted (0 disables expiry); control messages never expire
+	 */
+	public static int MAILBOX_MESSAGE_TTL = 1000 * 60;
+	/**
+	 * What happens to new messages for a role whose mailbox is full
+	 */
+	public static OverflowPolicy MAILBOX_OVERFLOW_POLICY = OverflowPolicy.REJECT;
+	/**
+	 * Number of threads shared by all event-driven roles of a node
+	 */
+	public static int ROLE_DISPATCHER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+	/**
+	 * Number of threads on which event-driven roles run work which may block
+	 * (installing, starting and stopping apps, planning)
+	 */
+	public static int ROLE_BLOCKING_THREADS = 4;
+	/**
+	 * How blocking roles are run: a thread per role, a virtual thread per
+	 * role (JDK 21+) or a bounded pool
+	 */
+	public static RoleRunner.Mode ROLE_RUNNER_MODE = RoleRunner.Mode.THREAD;
+	/**
+	 * Number of threads for blocking roles if they are run in a pool, i.e. the number of such roles which can run at the same time; starting more fails
+	 */
+	public static int ROLE_POOL_SIZE = 64;
+	/**
+	 * Number of threads per executed app which handle UI requests
+	 */
+	public static int EXECUTOR_UI_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	/**
+	 * Maximum number of UI requests per executed app waiting for a thread;
+	 * further requests are rejected
+	 */
+	public static int EXECUTOR_UI_QUEUE_CAPACITY = 256;
+	/**
+	 * Maximum number of app responses a node keeps for answering identical
+	 * GET requests (only for apps which allow it)
+	 */
+	public static int UI_RESPONSE_CACHE_SIZE = 1000;
+	/**
+	 * Maximum number of requests per app a node has in flight at once;
+	 * further requests are rejected with 503
+	 */
+	public static int APP_MAX_CONCURRENT_REQUESTS = 64;
+	/**
+	 * Requests per app and second a node admits; further requests are
+	 * rejected with 429. 0 for no rate limit
+	 */
+	public static int APP_REQUEST_RATE = 0;
+	/**
+	 * Requests per app a node admits at once after a quiet period
+	 */
+	public static int APP_REQUEST_BURST = 100;
+	/**
+	 * Milliseconds between gossip rounds while the view of the network
+	 * changes
+	 */
+	public static int GOSSIP_MIN_INTERVAL = 500;
+	/**
+	 * Milliseconds between gossip rounds once the view has settled; must stay
+	 * well below the expiration of node infos
+	 */
+	public static int GOSSIP_MAX_INTERVAL = 5000;
+	/**
+	 * Number of peers per gossip round once the view has settled
+	 */
+	public static int GOSSIP_MIN_FANOUT = 2;
+	/**
+	 * Number of peers per gossip round while the view changes
+	 */
+	public static int GOSSIP_MAX_FANOUT = 4;
 
 	/**
 	 * Milliseconds how long information about blocked port number is cached
 	 */
 	public static final int PORT_CACHE_INTERVAL = 5000;
+	/**
+	 * Milliseconds per tick of the shared timer (i.e. its resolution)
+	 */
+	public static final int TIMER_TICK_INTERVAL = 10;
+	/**
+	 * Number of buckets of the shared timer wheel
+	 */
+	public static final int TIMER_WHEEL_SIZE = 512;
+	/**
+	 * Number of threads running the expired tasks of the shared timer
+	 */
+	public static final int TIMER_WORKER_THREADS = 8;
 	/**
 	 * Milliseconds how long executor can exceed requirements before search is
 	 * initiated
@@ -246,6 +353,108 @@ public class Configuration {
 				if (port != null) {
 					BOOTSTRAP_PORT = port;
 				}
+			} else if (key.equals("BatchWindow")) {
+				Integer window = validateInteger(key, value, 0);
+				if (window != null) {
+					MESSAGE_BATCH_WINDOW = window;
+				}
+			} else if (key.equals("BatchMaxSize")) {
+				Integer size = validateInteger(key, value);
+				if (size != null) {
+					MESSAGE_BATCH_MAX_SIZE = size;
+				}
+			} else if (key.equals("InboundBulkCapacity")) {
+				Integer capacity = validateInteger(key, value);
+				if (capacity != null) {
+					INBOUND_BULK_CAPACITY = capacity;
+				}
+			} else if (key.equals("MailboxCapacity")) {
+				Integer capacity = validateInteger(key, value);
+				if (capacity != null) {
+					MAILBOX_CAPACITY = capacity;
+				}
+			} else if (key.equals("MailboxMessageTTL")) {
+				Integer ttl = validateInteger(key, value, 0);
+				if (ttl != null) {
+					MAILBOX_MESSAGE_TTL = ttl;
+				}
+			} else if (key.equals("MailboxOverflowPolicy")) {
+				try {
+					MAILBOX_OVERFLOW_POLICY = OverflowPolicy.valueOf(value.toUpperCase());
+				} catch (IllegalArgumentException e) {
+					logValueError(key, value, "is no valid overflow policy (DROP_OLDEST, DROP_NEWEST, REJECT)");
+				}
+			} else if (key.equals("RoleDispatcherThreads")) {
+				Integer threads = validateInteger(key, value);
+				if (threads != null) {
+					ROLE_DISPATCHER_THREADS = threads;
+				}
+			} else if (key.equals("RoleBlockingThreads")) {
+				Integer threads = validateInteger(key, value);
+				if (threads != null) {
+					ROLE_BLOCKING_THREADS = threads;
+				}
+			} else if (key.equals("RoleRunnerMode")) {
+				try {
+					ROLE_RUNNER_MODE = RoleRunner.Mode.valueOf(value.toUpperCase());
+				} catch (IllegalArgumentException e) {
+					logValueError(key, value, "is no valid role runner mode (THREAD, VIRTUAL, POOL)");
+				}
+			} else if (key.equals("RolePoolSize")) {
+				Integer size = validateInteger(key, value);
+				if (size != null) {
+					ROLE_POOL_SIZE = size;
+				}
+			} else if (key.equals("ExecutorUIThreads")) {
+				Integer threads = validateInteger(key, value);
+				if (threads != null) {
+					EXECUTOR_UI_THREADS = threads;
+				}
+			} else if (key.equals("ExecutorUIQueueCapacity")) {
+				Integer capacity = validateInteger(key, value);
+				if (capacity != null) {
+					EXECUTOR_UI_QUEUE_CAPACITY = capacity;
+				}
+			} else if (key.equals("UIResponseCacheSize")) {
+				Integer size = validateInteger(key, value);
+				if (size != null) {
+					UI_RESPONSE_CACHE_SIZE = size;
+				}
+			} else if (key.equals("AppMaxConcurrentRequests")) {
+				Integer max = validateInteger(key, value);
+				if (max != null) {
+					APP_MAX_CONCURRENT_REQUESTS = max;
+				}
+			} else if (key.equals("AppRequestRate")) {
+				Integer rate = validateInteger(key, value, 0);
+				if (rate != null) {
+					APP_REQUEST_RATE = rate;
+				}
+			} else if (key.equals("AppRequestBurst")) {
+				Integer burst = validateInteger(key, value);
+				if (burst != null) {
+					APP_REQUEST_BURST = burst;
+				}
+			} else if (key.equals("GossipMinInterval")) {
+				Integer interval = validateInteger(key, value);
+				if (interval != null) {
+					GOSSIP_MIN_INTERVAL = interval;
+				}
+			} else if (key.equals("GossipMaxInterval")) {
+				Integer interval = validateInteger(key, value);
+				if (interval != null) {
+					GOSSIP_MAX_INTERVAL = interval;
+				}
+			} else if (key.equals("GossipMinFanout")) {
+				Integer fanout = validateInteger(key, value);
+				if (fanout != null) {
+					GOSSIP_MIN_FANOUT = fanout;
+				}
+			} else if (key.equals("GossipMaxFanout")) {
+				Integer fanout = validateInteger(key, value);
+				if (fanout != null) {
+					GOSSIP_MAX_FANOUT = fanout;
+				}
 			} else {
 				log.error("Key \"" + key + "\" is no valid key");
 			}
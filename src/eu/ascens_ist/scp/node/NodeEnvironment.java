@@ -36,6 +36,7 @@ import rice.pastry.commonapi.PastryIdFactory;
 import rice.pastry.socket.SocketPastryNodeFactory;
 import rice.pastry.standard.RandomNodeIdFactory;
 import eu.ascens_ist.scp.node.core.SCPNode;
+import eu.ascens_ist.scp.node.core.TimerWheel;
 import eu.ascens_ist.scp.node.core.exceptions.NodeEnvironmentException;
 import eu.ascens_ist.scp.node.logging.LogFactory;
 import eu.ascens_ist.scp.node.logging.Logger;
@@ -64,6 +65,10 @@ public class NodeEnvironment {
 	private List<SCPNode> nodes;
 	private int nodeCount = Configuration.START_NODE_COUNT;
 	private HashMap<Integer, Date> portCache;
+	/**
+	 * Timer shared by all nodes of this environment
+	 */
+	private TimerWheel timer;
 
 	/**
 	 * Returns the instance, if any. The instance must be initialized by calling
@@ -90,6 +95,9 @@ public class NodeEnvironment {
 			node.shutdown();
 		}
 
+		if (timer != null)
+			timer.shutdown();
+
 		log.info("Node Environment was shut down.");
 		instance = null;
 	}
@@ -114,6 +122,9 @@ public class NodeEnvironment {
 		// LAN)
 		this.env.getParameters().setString("nat_search_policy", "never");
 
+		this.timer = new TimerWheel(this.env.getTimeSource(), Configuration.TIMER_TICK_INTERVAL, Configuration.TIMER_WHEEL_SIZE,
+				Configuration.TIMER_WORKER_THREADS);
+
 		this.pastryIdFactory = new PastryIdFactory(this.env);
 		this.nodeIdFactory = new RandomNodeIdFactory(this.env);
 
@@ -248,6 +259,16 @@ public class NodeEnvironment {
 		return this.env.getTimeSource().currentTimeMillis();
 	}
 
+	/**
+	 * Returns the timer to use for all timeouts and periodic tasks, instead of
+	 * sleeping.
+	 * 
+	 * @return
+	 */
+	public TimerWheel getTimer() {
+		return this.timer;
+	}
+
 	public void sleep(long time) {
 		try {
 			this.env.getTimeSource().sleep(time);
@@ -0,0 +1,29 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core;
+
+import java.util.Map;
+
+/**
+ * 
+ * An app service whose UI output may be cached. For GET requests, the platform asks the app how long the response to the request may be reused for
+ * identical requests (same target and parameters), which are then answered without calling the app again.
+ * 
+ */
+public interface ICacheableAppService extends IAppService {
+
+	/**
+	 * Called after {@link #handleUI(ISCPNode, String, Map)} has answered a GET request.
+	 * 
+	 * @param target
+	 * @param properties
+	 * @return milliseconds the response may be reused for; 0 or less if it must not be cached
+	 */
+	public long getUICacheTTL(String target, Map<String, String[]> properties);
+
+}
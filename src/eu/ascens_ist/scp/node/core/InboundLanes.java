@@ -0,0 +1,96 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import rice.p2p.commonapi.Id;
+import rice.p2p.commonapi.Message;
+
+/**
+ * Hands incoming messages to the strategy on one of three lanes, chosen by message priority: control (liveness, shutdown, answers), default, and bulk
+ * (code transfer). Each lane is served by its own thread, so a large message being handled never delays the control traffic. Messages within one lane
+ * keep their order.
+ * 
+ * The control and default lanes are unbounded: their messages are small and must not be lost, and blocking the Pastry thread instead would hold up the
+ * control traffic as well. The bulk lane is bounded, as its messages are large; if it is full, further bulk messages are dropped, which the sender
+ * notices by the missing ack and handles like any other failed transfer.
+ * 
+ */
+public class InboundLanes {
+
+	private ExecutorService controlLane;
+
+	private ExecutorService defaultLane;
+
+	private ExecutorService bulkLane;
+
+	/**
+	 * @param nodeId
+	 * @param bulkCapacity
+	 *            maximum number of bulk messages waiting to be handled
+	 */
+	public InboundLanes(Id nodeId, int bulkCapacity) {
+		this.controlLane = newLane("Control", nodeId);
+		this.defaultLane = newLane("Default", nodeId);
+		this.bulkLane = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(bulkCapacity), newThreadFactory("Bulk",
+				nodeId));
+	}
+
+	/**
+	 * Queues the handler on the lane of the message.
+	 * 
+	 * @param message
+	 * @param handler
+	 * @return false if the message was dropped, as its lane is full or already shut down
+	 */
+	public boolean dispatch(Message message, Runnable handler) {
+		int priority = message.getPriority();
+		try {
+			if (priority <= Message.MEDIUM_HIGH_PRIORITY)
+				controlLane.execute(handler);
+			else if (priority >= Message.MEDIUM_LOW_PRIORITY)
+				bulkLane.execute(handler);
+			else
+				defaultLane.execute(handler);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	public void shutdown() {
+		controlLane.shutdownNow();
+		defaultLane.shutdownNow();
+		bulkLane.shutdownNow();
+	}
+
+	private static ExecutorService newLane(String lane, Id nodeId) {
+		return Executors.newSingleThreadExecutor(newThreadFactory(lane, nodeId));
+	}
+
+	private static ThreadFactory newThreadFactory(final String lane, final Id nodeId) {
+		return new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = Executors.defaultThreadFactory().newThread(r);
+				t.setName("Inbound " + lane + " Lane " + nodeId);
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+}
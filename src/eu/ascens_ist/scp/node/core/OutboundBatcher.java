@@ -0,0 +1,135 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rice.p2p.commonapi.Id;
+import rice.p2p.commonapi.Message;
+import eu.ascens_ist.scp.node.messages.SCPBatchMessage;
+
+/**
+ * Coalesces direct messages to the same destination node. A message to a node nothing has been sent to lately is routed right away, so a lone message
+ * never waits; it opens a batch window in which further messages to the node are collected. When the window has passed (or the batch has reached the
+ * maximum batch size), the collected messages are routed, and as long as there were any, a new window is opened. Batches with more than one message
+ * are routed as one {@link SCPBatchMessage}.
+ * 
+ * Only messages of medium priority are batched. Control messages (higher priority) are routed right away so they never wait for the window, and bulk
+ * messages (lower priority) are routed on their own so they do not hold back the small ones.
+ * 
+ */
+public class OutboundBatcher {
+
+	private SCPNode node;
+
+	private int windowinms;
+
+	private int maxBatchSize;
+
+	/**
+	 * Messages collected in the open window, by destination; there is no entry for a destination without an open window.
+	 */
+	private Map<Id, List<Message>> openBatches;
+
+	private TimerWheel timer;
+
+	/**
+	 * @param node
+	 * @param windowinms
+	 *            time a batch window is kept open; 0 disables batching
+	 * @param maxBatchSize
+	 *            number of messages after which a batch is routed immediately
+	 */
+	public OutboundBatcher(final SCPNode node, int windowinms, int maxBatchSize) {
+		this.node = node;
+		this.windowinms = windowinms;
+		this.maxBatchSize = maxBatchSize;
+		this.openBatches = new HashMap<>();
+		this.timer = node.getEnvironment().getTimer();
+	}
+
+	public void send(Message message, final Id to) {
+
+		if (windowinms <= 0 || maxBatchSize <= 1 || message.getPriority() != Message.MEDIUM_PRIORITY) {
+			node.route(message, to);
+			return;
+		}
+
+		List<Message> full = null;
+		synchronized (openBatches) {
+			List<Message> batch = openBatches.get(to);
+			if (batch == null) {
+				// nothing in flight to the node; no reason to wait
+				openWindow(to);
+				full = new ArrayList<>();
+				full.add(message);
+			} else {
+				batch.add(message);
+				if (batch.size() >= maxBatchSize) {
+					full = batch;
+					openBatches.put(to, new ArrayList<Message>());
+				}
+			}
+		}
+
+		if (full != null)
+			route(full, to);
+	}
+
+	/**
+	 * Routes all open batches right away and stops the batcher.
+	 */
+	public void shutdown() {
+		Map<Id, List<Message>> remaining;
+		synchronized (openBatches) {
+			remaining = new HashMap<>(openBatches);
+			openBatches.clear();
+		}
+
+		for (Map.Entry<Id, List<Message>> entry : remaining.entrySet()) {
+			if (!entry.getValue().isEmpty())
+				route(entry.getValue(), entry.getKey());
+		}
+	}
+
+	private void openWindow(final Id to) {
+		openBatches.put(to, new ArrayList<Message>());
+		timer.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				flush(to);
+			}
+		}, windowinms);
+	}
+
+	private void flush(Id to) {
+		List<Message> batch;
+		synchronized (openBatches) {
+			batch = openBatches.remove(to);
+			// the node is still busy with messages from us; keep collecting
+			if (batch != null && !batch.isEmpty())
+				openWindow(to);
+		}
+
+		// might have been routed already because it was full, or on shutdown
+		if (batch != null && !batch.isEmpty())
+			route(batch, to);
+	}
+
+	private void route(List<Message> batch, Id to) {
+		if (batch.size() == 1)
+			node.route(batch.get(0), to);
+		else
+			node.route(new SCPBatchMessage(node.getId(), to, batch), to);
+	}
+
+}
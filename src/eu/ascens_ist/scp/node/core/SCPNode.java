@@ -55,6 +55,7 @@ import eu.ascens_ist.scp.node.info.AppExecutionStatus;
 import eu.ascens_ist.scp.node.info.NodeInfo;
 import eu.ascens_ist.scp.node.logging.LogFactory;
 import eu.ascens_ist.scp.node.logging.Logger;
+import eu.ascens_ist.scp.node.messages.SCPBatchMessage;
 import eu.ascens_ist.scp.node.storage.LookupContinuation;
 import eu.ascens_ist.scp.node.storage.PastAppAbstractContent;
 import eu.ascens_ist.scp.node.storage.PastAppContent;
@@ -87,7 +88,19 @@ public class SCPNode implements Application, ISCPNode {
 	protected GCPast gcpast;
 	protected StorageManager storageManager;
 	protected MonitorClient monitorClient;
+	/**
+	 * Coalesces outgoing direct messages per destination node
+	 */
+	protected OutboundBatcher outboundBatcher;
+	/**
+	 * Priority lanes for handing incoming direct messages to the strategy
+	 */
+	protected InboundLanes inboundLanes;
 	protected NodeEnvironment nodeEnvironment;
+	/**
+	 * Periodic refresh of system infos and gossip
+	 */
+	protected volatile TimerWheel.Timeout updateTimeout;
 	protected InetAddress baseAddress;
 	protected int basePort;
 	/**
@@ -122,6 +135,8 @@ public class SCPNode implements Application, ISCPNode {
 		this.monitorClient = new MonitorClient(this);
 
 		this.endpoint = pastryNode.buildEndpoint(this, "CoreApp");
+		this.outboundBatcher = new OutboundBatcher(this, Configuration.MESSAGE_BATCH_WINDOW, Configuration.MESSAGE_BATCH_MAX_SIZE);
+		this.inboundLanes = new InboundLanes(this.getId(), Configuration.INBOUND_BULK_CAPACITY);
 
 		// gcPast
 		PastryIdFactory idf = new PastryIdFactory(nodeEnvironment.getPastryEnvironment());
@@ -141,21 +156,24 @@ public class SCPNode implements Application, ISCPNode {
 		this.webService = new SCPWebService(this);
 		this.webService.activate();
 
-		// Start a thread for refreshing system infos
-		Runnable systemInfoRunnable = new UpdateRunnable();
-		Thread systemInfoThread = new Thread(systemInfoRunnable);
-		systemInfoThread.start();
+		// Refresh system infos periodically
+		this.updateTimeout = nodeEnvironment.getTimer().schedule(new UpdateRunnable(), 0);
 
 		nodeLog.info("SCP node started: %s.", this.getId());
 	}
 
 	private final class UpdateRunnable implements Runnable {
+		private boolean initialized = false;
+
 		@Override
 		public void run() {
-			nodeInfo.initialize();
-			while (updateInformation()) {
-				NodeEnvironment.get().sleep(2500);
+			if (!initialized) {
+				nodeInfo.initialize();
+				initialized = true;
 			}
+			// the strategy decides when to update next
+			if (updateInformation())
+				updateTimeout = nodeEnvironment.getTimer().schedule(this, strategy.getUpdateInterval());
 		}
 	};
 
@@ -272,14 +290,21 @@ public class SCPNode implements Application, ISCPNode {
 
 		nodeLog.info("Shutting down SCP node %s.", this.getId());
 
+		updateTimeout.cancel();
+
 		this.webService.deactivate();
 
 		strategy.handleShutdown();
 
+		outboundBatcher.shutdown();
+
 		nodeInfo = null;
 
 		pastryNode.destroy();
 
+		// only now no more messages are delivered
+		inboundLanes.shutdown();
+
 		gcpast = null;
 
 		isAlive = false;
@@ -340,7 +365,7 @@ public class SCPNode implements Application, ISCPNode {
 			throw new RuntimeException(msg);
 		}
 
-		this.endpoint.route(to, message, null);
+		this.outboundBatcher.send(message, to);
 
 		//Inform MonitorServer about Message
 		if (monitorClient != null)
@@ -348,13 +373,42 @@ public class SCPNode implements Application, ISCPNode {
 
 	}
 
+	/**
+	 * Routes the message through Pastry right away; used by the
+	 * {@link OutboundBatcher}.
+	 * 
+	 * @param message
+	 * @param to
+	 */
+	void route(Message message, Id to) {
+		this.endpoint.route(to, message, null);
+	}
+
 	/**
 	 * Called if a message was received directly (not via Scribe)
 	 */
 	@Override
 	public void deliver(Id id, Message message) {
 
-		strategy.handleDirectIncomingMessage(id, message);
+		if (message instanceof SCPBatchMessage) {
+			for (Message batched : ((SCPBatchMessage) message).getMessages())
+				dispatch(id, batched);
+			return;
+		}
+
+		dispatch(id, message);
+	}
+
+	private void dispatch(final Id id, final Message message) {
+		boolean queued = inboundLanes.dispatch(message, new Runnable() {
+
+			@Override
+			public void run() {
+				strategy.handleDirectIncomingMessage(id, message);
+			}
+		});
+		if (!queued)
+			nodeLog.warn("Dropped incoming %s, as its lane is full or shut down.", message.getClass().getSimpleName());
 	}
 
 	/**
@@ -540,7 +594,17 @@ public class SCPNode implements Application, ISCPNode {
 		appService.start(this);
 	}
 
-	public String getLocalAppResult(String appName, String target, Map<String, String[]> properties) {
+	/**
+	 * Lets the locally running app handle a UI request.
+	 * 
+	 * @param appName
+	 * @param target
+	 * @param properties
+	 * @return the response of the app
+	 * @throws AppRequestException
+	 *             if the app could not handle the request; the message is meant for the user
+	 */
+	public String getLocalAppResult(String appName, String target, Map<String, String[]> properties) throws AppRequestException {
 
 		IAppService appService;
 		try {
@@ -549,12 +613,32 @@ public class SCPNode implements Application, ISCPNode {
 
 		} catch (AppRequestException e1) {
 			nodeLog.error(e1.getMessage());
-			return e1.getMessage();
+			throw e1;
 		} catch (Exception e) {
 			String error = String.format("Application %s cannot not be found on %s (request failed: %s).", appName, this, e.getMessage());
 			nodeLog.error(e, "%s", error);
-			return error;
+			throw new AppRequestException(error, e);
+		}
+	}
+
+	/**
+	 * Asks the app how long the response to the given GET request may be
+	 * reused.
+	 * 
+	 * @param appName
+	 * @param target
+	 * @param properties
+	 * @return milliseconds; 0 if the response must not be cached
+	 */
+	public long getLocalAppCacheTTL(String appName, String target, Map<String, String[]> properties) {
+		try {
+			IAppService appService = getOrRetrieveAppService(appName);
+			if (appService instanceof ICacheableAppService)
+				return ((ICacheableAppService) appService).getUICacheTTL(target, properties);
+		} catch (Exception e) {
+			nodeLog.error("Could not get cache TTL of app %s: %s", appName, e.getMessage());
 		}
+		return 0;
 	}
 
 	private IAppService getOrRetrieveAppService(String appName) throws AppRequestException {
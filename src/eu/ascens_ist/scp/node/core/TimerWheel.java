@@ -0,0 +1,297 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rice.environment.time.TimeSource;
+import eu.ascens_ist.scp.node.logging.LogFactory;
+import eu.ascens_ist.scp.node.logging.Logger;
+
+/**
+ * Shared timer for all timeouts and periodic tasks of the nodes in this VM. Implemented as a hashed timing wheel: a single thread advances the wheel
+ * tick by tick (driven by the Pastry {@link TimeSource}), and a timeout costs one entry in a bucket instead of a sleeping thread. Registering and
+ * cancelling are O(1).
+ *
+ * Deadlines are accurate to one tick. Expired tasks are run on a small, fixed worker pool, so a slow task does not delay the wheel; if all workers are
+ * busy, expired tasks wait for a free one.
+ *
+ */
+public class TimerWheel {
+
+	/**
+	 * A scheduled task.
+	 */
+	public interface Timeout {
+
+		/**
+		 * Cancels the task unless it has already been run.
+		 *
+		 * @return true if the task was cancelled
+		 */
+		boolean cancel();
+
+		boolean isCancelled();
+	}
+
+	private static final int PENDING = 0;
+	private static final int CANCELLED = 1;
+	private static final int EXPIRED = 2;
+
+	private static Logger log = LogFactory.get("TIMERWHEEL");
+
+	private TimeSource timeSource;
+
+	private long tickinms;
+
+	private Bucket[] wheel;
+
+	private int mask;
+
+	private long startTime;
+
+	private long tick;
+
+	private Queue<Entry> added;
+
+	private Queue<Entry> cancelled;
+
+	private ThreadPoolExecutor workers;
+
+	private Thread thread;
+
+	private volatile boolean running;
+
+	/**
+	 * @param timeSource
+	 * @param tickinms
+	 *            resolution of the timer
+	 * @param wheelSize
+	 *            number of buckets; rounded up to a power of two
+	 * @param workerThreads
+	 *            maximum number of threads running expired tasks
+	 */
+	public TimerWheel(TimeSource timeSource, long tickinms, int wheelSize, int workerThreads) {
+		this.timeSource = timeSource;
+		this.tickinms = tickinms;
+
+		int size = Integer.highestOneBit(Math.max(wheelSize, 1) - 1) << 1;
+		if (size <= 0)
+			size = 1;
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; i++)
+			wheel[i] = new Bucket();
+		this.mask = size - 1;
+
+		this.added = new ConcurrentLinkedQueue<>();
+		this.cancelled = new ConcurrentLinkedQueue<>();
+
+		final AtomicInteger count = new AtomicInteger();
+		int threads = Math.max(workerThreads, 1);
+		this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = Executors.defaultThreadFactory().newThread(r);
+				t.setName("Timer Worker " + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.workers.allowCoreThreadTimeOut(true);
+
+		this.startTime = timeSource.currentTimeMillis();
+		this.running = true;
+		this.thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				advance();
+			}
+		}, "Timer Wheel");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Runs the task once after the given delay. The task should be short; it is run on a shared worker thread.
+	 *
+	 * @param task
+	 * @param delayinms
+	 * @return the timeout, which may be cancelled
+	 */
+	public Timeout schedule(Runnable task, long delayinms) {
+		Entry entry = new Entry(task, timeSource.currentTimeMillis() - startTime + Math.max(delayinms, 0));
+		added.add(entry);
+		return entry;
+	}
+
+	/**
+	 * Stops the timer; pending tasks are not run anymore.
+	 */
+	public void shutdown() {
+		running = false;
+		thread.interrupt();
+		workers.shutdownNow();
+	}
+
+	private void advance() {
+		while (running) {
+			long deadline = (tick + 1) * tickinms;
+			long sleepTime = deadline - (timeSource.currentTimeMillis() - startTime);
+			if (sleepTime > 0) {
+				try {
+					timeSource.sleep(sleepTime);
+				} catch (InterruptedException e) {
+					continue;
+				}
+				continue;
+			}
+
+			removeCancelled();
+			transferAdded();
+			expire(wheel[(int) (tick & mask)]);
+			tick++;
+		}
+	}
+
+	private void transferAdded() {
+		Entry entry;
+		while ((entry = added.poll()) != null) {
+			if (entry.state.get() != PENDING)
+				continue;
+
+			// never schedule into the past; those are run with the current tick
+			long ticks = Math.max(entry.deadline / tickinms, tick);
+			entry.remainingRounds = (ticks - tick) / wheel.length;
+			wheel[(int) (ticks & mask)].add(entry);
+		}
+	}
+
+	private void removeCancelled() {
+		Entry entry;
+		while ((entry = cancelled.poll()) != null) {
+			if (entry.bucket != null)
+				entry.bucket.remove(entry);
+		}
+	}
+
+	private void expire(Bucket bucket) {
+		Entry entry = bucket.head;
+		while (entry != null) {
+			Entry next = entry.next;
+			if (entry.remainingRounds <= 0) {
+				bucket.remove(entry);
+				if (entry.state.compareAndSet(PENDING, EXPIRED))
+					run(entry.task);
+			} else {
+				entry.remainingRounds--;
+			}
+			entry = next;
+		}
+	}
+
+	private void run(final Runnable task) {
+		try {
+			workers.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} catch (RuntimeException e) {
+						log.error("Timer task failed: %s", e.getMessage());
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// shut down meanwhile
+		}
+	}
+
+	private final class Entry implements Timeout {
+
+		private final Runnable task;
+
+		private final long deadline;
+
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+
+		private long remainingRounds;
+
+		private Bucket bucket;
+
+		private Entry previous;
+
+		private Entry next;
+
+		Entry(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public boolean cancel() {
+			if (!state.compareAndSet(PENDING, CANCELLED))
+				return false;
+			cancelled.add(this);
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+	}
+
+	/**
+	 * Doubly linked list of entries; only accessed by the wheel thread.
+	 */
+	private static final class Bucket {
+
+		private Entry head;
+
+		private Entry tail;
+
+		void add(Entry entry) {
+			entry.bucket = this;
+			entry.previous = tail;
+			entry.next = null;
+			if (tail == null)
+				head = entry;
+			else
+				tail.next = entry;
+			tail = entry;
+		}
+
+		void remove(Entry entry) {
+			if (entry.bucket != this)
+				return;
+			if (entry.previous == null)
+				head = entry.next;
+			else
+				entry.previous.next = entry.next;
+			if (entry.next == null)
+				tail = entry.previous;
+			else
+				entry.next.previous = entry.previous;
+			entry.bucket = null;
+			entry.previous = null;
+			entry.next = null;
+		}
+	}
+
+}
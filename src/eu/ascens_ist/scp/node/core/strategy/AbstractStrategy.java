@@ -47,6 +47,12 @@ public abstract class AbstractStrategy implements IStrategy {
 	public static final String ROLE_INITIATOR = "Initiator";
 	public static final String ROLE_EXECUTOR = "Executor";
 
+	/**
+	 * Milliseconds between calls of updateNodeInformation() unless a strategy
+	 * says otherwise
+	 */
+	private static final long DEFAULT_UPDATE_INTERVAL = 2500;
+
 	private Logger abstractStrategyLog;
 
 	protected SCPNode node;
@@ -62,6 +68,11 @@ public abstract class AbstractStrategy implements IStrategy {
 	public void updateNodeInformation() {
 	}
 
+	@Override
+	public long getUpdateInterval() {
+		return DEFAULT_UPDATE_INTERVAL;
+	}
+
 	@Override
 	public void handleShutdown() {
 	}
@@ -9,6 +9,7 @@ package eu.ascens_ist.scp.node.core.strategy;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -146,10 +147,12 @@ public interface IStrategy {
 	 * @param appTarget
 	 * @param request
 	 * @param response
-	 * @return
+	 * @return the output of the app; completes exceptionally with an
+	 *         {@link AppRequestException} if there is none in time
 	 * @throws AppRequestException
+	 *             if the request could not be sent
 	 */
-	public String appRequest(AppInfo appInfo, String appTarget, HttpServletRequest request, HttpServletResponse response) throws AppRequestException;
+	public CompletableFuture<String> appRequest(AppInfo appInfo, String appTarget, HttpServletRequest request, HttpServletResponse response) throws AppRequestException;
 
 	// Infos -----------------------------------------------
 
@@ -175,7 +178,8 @@ public interface IStrategy {
 	 * may be empty.
 	 * 
 	 * The result does not contain the information about the node itself; for
-	 * that, use {@link #getNodeInfo()}.
+	 * that, use {@link #getNodeInfo()}. It may be an immutable snapshot, so
+	 * callers must not change it.
 	 * 
 	 * @param count
 	 * @return
@@ -221,12 +225,21 @@ public interface IStrategy {
 	public SCPNode getSCPNode();
 
 	/**
-	 * Method is every 5 seconds called. Can be used to update Information
+	 * Method is called periodically, see {@link #getUpdateInterval()}. Can be
+	 * used to update Information
 	 * 
 	 * @return
 	 */
 	public void updateNodeInformation();
 
+	/**
+	 * Milliseconds until updateNodeInformation() is called next; asked again
+	 * after every call, so the strategy may adapt it.
+	 * 
+	 * @return
+	 */
+	public long getUpdateInterval();
+
 	/**
 	 * Creates ZimoryDeployment with requirements from App
 	 */
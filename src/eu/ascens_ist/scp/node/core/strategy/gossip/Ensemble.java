@@ -15,8 +15,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import rice.p2p.commonapi.Id;
-import eu.ascens_ist.scp.node.core.strategy.IStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleCreationException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.roles.EventDrivenRole;
 import eu.ascens_ist.scp.node.core.strategy.gossip.roles.HelenaRole;
 
 /**
@@ -31,9 +31,9 @@ public class Ensemble {
 
 	private Map<RoleId, HelenaRole> roles;
 
-	private IStrategy strategy;
+	private GossipHelenaBasedStrategy strategy;
 
-	public Ensemble(Id ensembleId, IStrategy strategy) {
+	public Ensemble(Id ensembleId, GossipHelenaBasedStrategy strategy) {
 		this.ensembleId= ensembleId;
 		this.strategy= strategy;
 		this.roles= new ConcurrentHashMap<>();
@@ -56,10 +56,24 @@ public class Ensemble {
 			Constructor<?> constructor= roleType.getConstructor(Id.class, Id.class, GossipHelenaBasedStrategy.class);
 			HelenaRole newRole= (HelenaRole) constructor.newInstance(ensembleId, strategy.getSCPNode().getId(), strategy);
 			roles.put(newRole.getRoleId(), newRole);
-
-			new Thread(newRole).start();
+			strategy.openMailbox(newRole.getRoleId());
+
+			if (newRole instanceof EventDrivenRole)
+				((EventDrivenRole<?>) newRole).start();
+			else {
+				try {
+					strategy.getRoleRunner().run(newRole);
+				} catch (RRoleCreationException e) {
+					// the role never runs, so nobody must find it
+					strategy.roleShutdown(newRole);
+					throw e;
+				}
+			}
 			return newRole.getRoleId();
 
+		} catch (RRoleCreationException e) {
+			throw e;
+
 		} catch (Exception e) {
 			throw new RRoleCreationException("Could not create role " + roleType, e);
 		}
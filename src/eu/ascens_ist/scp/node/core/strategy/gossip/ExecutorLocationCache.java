@@ -0,0 +1,118 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.core.strategy.AbstractStrategy;
+import eu.ascens_ist.scp.node.info.AppInfo;
+import eu.ascens_ist.scp.node.info.NodeInfo;
+
+/**
+ * Remembers which executor roles (replicas) run an app, so UI requests can go to an executor directly instead of asking the initiator first. Entries
+ * are filled from the initiator's reports; an executor is dropped as soon as it turns out to be gone: when sending to it fails, when it does not
+ * answer, or when gossip shows that its node no longer has the executor role for the app.
+ *
+ */
+public class ExecutorLocationCache {
+
+	/**
+	 * Immutable lists, never empty
+	 */
+	private Map<String, List<RoleId>> executors;
+
+	public ExecutorLocationCache() {
+		this.executors= new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @param appName
+	 * @return the executors, or an empty list if unknown
+	 */
+	public List<RoleId> get(String appName) {
+		List<RoleId> replicas= executors.get(appName);
+		return replicas != null ? replicas : Collections.<RoleId> emptyList();
+	}
+
+	public void put(String appName, List<RoleId> replicas) {
+		if (replicas.isEmpty())
+			executors.remove(appName);
+		else
+			executors.put(appName, Collections.unmodifiableList(new ArrayList<>(replicas)));
+	}
+
+	/**
+	 * Drops the given executor of the app, if it is still known (another request might already have found new ones).
+	 *
+	 * @param appName
+	 * @param executor
+	 */
+	public void invalidate(String appName, RoleId executor) {
+		executors.computeIfPresent(appName, (app, replicas) -> without(replicas, executor));
+	}
+
+	/**
+	 * Drops all executors on the node which, according to the given (newer) information, are not there anymore.
+	 *
+	 * @param nodeInfo
+	 */
+	public void nodeInfoChanged(NodeInfo nodeInfo) {
+		for (String appName : executors.keySet()) {
+			if (!hasExecutorRole(nodeInfo, appName))
+				dropNode(appName, nodeInfo.getId());
+		}
+	}
+
+	/**
+	 * Drops all executors on the given node.
+	 *
+	 * @param nodeId
+	 */
+	public void nodeGone(Id nodeId) {
+		for (String appName : executors.keySet())
+			dropNode(appName, nodeId);
+	}
+
+	private void dropNode(String appName, Id nodeId) {
+		executors.computeIfPresent(appName, (app, replicas) -> {
+			List<RoleId> remaining= new ArrayList<>();
+			for (RoleId executor : replicas) {
+				if (!executor.getNodeId().equals(nodeId))
+					remaining.add(executor);
+			}
+			if (remaining.size() == replicas.size())
+				return replicas;
+			return remaining.isEmpty() ? null : Collections.unmodifiableList(remaining);
+		});
+	}
+
+	/**
+	 * @return the list without the executor; null if it would be empty
+	 */
+	private static List<RoleId> without(List<RoleId> replicas, RoleId executor) {
+		if (!replicas.contains(executor))
+			return replicas;
+		List<RoleId> remaining= new ArrayList<>(replicas);
+		remaining.remove(executor);
+		return remaining.isEmpty() ? null : Collections.unmodifiableList(remaining);
+	}
+
+	private static boolean hasExecutorRole(NodeInfo nodeInfo, String appName) {
+		for (Map.Entry<AppInfo, Map<String, String>> appRoles : nodeInfo.getAppRoles().entrySet()) {
+			if (appRoles.getKey().getName().equals(appName))
+				return appRoles.getValue().containsKey(AbstractStrategy.ROLE_EXECUTOR);
+		}
+		return false;
+	}
+
+}
@@ -12,12 +12,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -32,16 +33,23 @@ import rice.p2p.commonapi.NodeHandle;
 import rice.p2p.past.PastContent;
 import rice.p2p.scribe.ScribeContent;
 import rice.p2p.scribe.Topic;
+import eu.ascens_ist.scp.node.Configuration;
 import eu.ascens_ist.scp.node.core.SCPNode;
+import eu.ascens_ist.scp.node.core.TimerWheel;
 import eu.ascens_ist.scp.node.core.exceptions.AppRequestException;
 import eu.ascens_ist.scp.node.core.exceptions.BundleStartException;
 import eu.ascens_ist.scp.node.core.exceptions.IncorrectUICommandException;
 import eu.ascens_ist.scp.node.core.strategy.AbstractStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.REnsembleNotFoundException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RMailboxFullException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleCreationException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleNotFoundException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RTimeoutException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.msg.GossipDigestMessage;
+import eu.ascens_ist.scp.node.core.strategy.gossip.msg.GossipDigestReplyMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.GossipInfoMessage;
+import eu.ascens_ist.scp.node.core.strategy.gossip.msg.HelenaWrapperAckMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.HelenaWrapperAnswerMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.HelenaWrapperFrameworkResultMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.HelenaWrapperMessage;
@@ -97,11 +105,61 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 	/**
 	 * Nodes known through gossipping (WITHOUT OURSELVES!!!)
 	 */
-	private Map<Id, NodeInfo> knownNodes;
+	private MembershipView knownNodes;
 	private Map<Id, Ensemble> ensembles;
-	private Set<RMessage> incomingMessageCache;
-	private Map<Id, HelenaWrapperAnswerMessage> incomingWrapperAnswerMessageCache;
-	private Map<Id, String> uiResponseCache;
+	/**
+	 * One mailbox per local role.
+	 */
+	private Map<RoleId, RoleMailbox> mailboxes;
+	/**
+	 * Counters of mailboxes already closed, and of messages without a mailbox.
+	 */
+	private AtomicLong closedMailboxesDropped;
+	private AtomicLong closedMailboxesExpired;
+	private AtomicLong closedMailboxesRejected;
+	private AtomicLong undeliverableMessages;
+	/**
+	 * Callers waiting for a HelenaWrapperAnswerMessage, keyed by the id of the wrapper message they have sent.
+	 */
+	private Map<Id, CompletableFuture<HelenaWrapperAnswerMessage>> pendingAnswers;
+	/**
+	 * Shared timer of the node environment; fails pending answers which did not arrive in time.
+	 */
+	private TimerWheel timer;
+	/**
+	 * Positive acks for received one-way messages which have not been sent back yet, keyed by the node to send them to.
+	 */
+	private Map<Id, List<Id>> unsentAcks;
+	/**
+	 * Drives the event-driven roles.
+	 */
+	private RoleDispatcher roleDispatcher;
+
+	private RoleRunner roleRunner;
+	/**
+	 * UI requests waiting for their response, keyed by routing id. Entries are removed as soon as the request is answered or has given up.
+	 */
+	private Map<Id, CompletableFuture<String>> pendingUIResponses;
+	/**
+	 * Where the executors of the apps are, as far as UI requests from this node have found out.
+	 */
+	private ExecutorLocationCache executorLocations;
+	/**
+	 * Identical GET requests in flight and the responses apps allow to reuse.
+	 */
+	private UIResponseCache uiResponses;
+	/**
+	 * Gossips faster and wider while the view changes.
+	 */
+	private GossipPacer gossipPacer;
+	/**
+	 * Our CPU load as of the last gossip round.
+	 */
+	private double lastCpuLoad;
+	/**
+	 * Which stored apps we are closest to, looked at again only when this may have changed.
+	 */
+	private OwnershipTracker ownershipTracker;
 
 	public static final String ROLE_DEPLOYER = "Deployer";
 	public static final String ROLE_REQUESTER = "requester";
@@ -113,6 +171,37 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 	public static boolean TESTMODE = false;
 
+	/**
+	 * Minimum time to wait for the (batched) ack of a one-way message. Unsent acks are flushed once per gossip round, so the actual timeout also grows
+	 * with the configured maximum gossip interval, see {@link #getOneWayAckTimeout()}.
+	 */
+	private static final int ONE_WAY_ACK_TIMEOUT = 10000;
+
+	/**
+	 * Number of unsent acks for one node after which they are flushed without waiting for a message to piggyback them on.
+	 */
+	private static final int MAX_UNSENT_ACKS = 32;
+
+	/**
+	 * Milliseconds a UI request waits for the response of the app. This is the only timeout for it; the requester role is told when it has passed.
+	 */
+	private static final int UI_RESPONSE_TIMEOUT = 10000;
+
+	/**
+	 * Percentage points the CPU load of a node has to jump by to count as a change of the view.
+	 */
+	private static final double CPU_LOAD_SPIKE = 25;
+
+	/**
+	 * Milliseconds to wait for further leaf set or PAST changes before checking whether we are initiator.
+	 */
+	private static final int OWNERSHIP_CHECK_DELAY = 1000;
+
+	/**
+	 * Milliseconds after which all stored apps are checked again, even if nothing seems to have changed.
+	 */
+	private static final int FULL_OWNERSHIP_CHECK_INTERVAL = 60000;
+
 	protected boolean doNotDeployYet = false;
 
 	public synchronized void setDoNotDeployYet(boolean doNotDeployYet) {
@@ -125,27 +214,65 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 		strategyLog = LogFactory.get(scpNode.getId() + " HELENASTRATEGY");
 
-		this.knownNodes = new HashMap<>();
-		this.ensembles = new HashMap<Id, Ensemble>();
-		this.incomingMessageCache = new CopyOnWriteArraySet<>();
-		this.incomingWrapperAnswerMessageCache = new ConcurrentHashMap<>();
-		this.uiResponseCache = new HashMap<>();
+		this.knownNodes = new MembershipView();
+		this.ensembles = new ConcurrentHashMap<Id, Ensemble>();
+		this.mailboxes = new ConcurrentHashMap<>();
+		this.closedMailboxesDropped = new AtomicLong();
+		this.closedMailboxesExpired = new AtomicLong();
+		this.closedMailboxesRejected = new AtomicLong();
+		this.undeliverableMessages = new AtomicLong();
+		this.pendingAnswers = new ConcurrentHashMap<>();
+		this.timer = scpNode.getEnvironment().getTimer();
+		this.unsentAcks = new HashMap<>();
+		this.roleDispatcher = new RoleDispatcher(scpNode.getId(), Configuration.ROLE_DISPATCHER_THREADS, Configuration.ROLE_BLOCKING_THREADS, timer);
+		this.roleRunner = new RoleRunner(scpNode.getId(), Configuration.ROLE_RUNNER_MODE, Configuration.ROLE_POOL_SIZE);
+		this.pendingUIResponses = new ConcurrentHashMap<>();
+		this.executorLocations = new ExecutorLocationCache();
+		this.uiResponses = new UIResponseCache(Configuration.UI_RESPONSE_CACHE_SIZE);
+		this.gossipPacer = new GossipPacer(Configuration.GOSSIP_MIN_INTERVAL, Configuration.GOSSIP_MAX_INTERVAL, Configuration.GOSSIP_MIN_FANOUT,
+				Configuration.GOSSIP_MAX_FANOUT);
+		this.ownershipTracker = new OwnershipTracker(new OwnershipTracker.Callback() {
+
+			@Override
+			public IdSet getStoredIds() {
+				return getSCPNode().getLocallyKnownPASTData();
+			}
+
+			@Override
+			public boolean isClosest(Id id) {
+				return node.getPastryNode().isClosest((rice.pastry.Id) id);
+			}
+
+			@Override
+			public void evaluate(Id id, boolean closest) {
+				evaluateInitiator(id, closest);
+			}
+		}, timer, OWNERSHIP_CHECK_DELAY, FULL_OWNERSHIP_CHECK_INTERVAL);
 	}
 
 	@Override
 	public void updateNodeInformation() {
-		List<NodeHandle> leafSet = node.getRandomLeafSetNodeHandles(2);
+		double cpuLoad = getNodeInfo().getCpuLoad();
+		if (Math.abs(cpuLoad - lastCpuLoad) >= CPU_LOAD_SPIKE)
+			gossipPacer.churn();
+		lastCpuLoad = cpuLoad;
 
-		Set<NodeInfo> knownNodesWithOurselves = new HashSet<>();
-		knownNodesWithOurselves.addAll(knownNodes.values());
-		knownNodesWithOurselves.add(getNodeInfo());
+		List<NodeHandle> leafSet = node.getRandomLeafSetNodeHandles(gossipPacer.getFanout());
 
-		for (NodeHandle thisHandle : leafSet) {
-			GossipInfoMessage m = new GossipInfoMessage(getNodeInfo().getId(), thisHandle.getId(), knownNodesWithOurselves);
-			getSCPNode().sendMessage(m, thisHandle.getId());
-		}
+		// push-pull: only versions first, node infos only where they differ
+		for (NodeHandle thisHandle : leafSet)
+			sendGossipDigestTo(thisHandle.getId());
 
+		flushAcks();
 		removeOldKnownNodes();
+		ownershipTracker.checkAllIfDue();
+
+		gossipPacer.roundDone();
+	}
+
+	@Override
+	public long getUpdateInterval() {
+		return gossipPacer.getInterval();
 	}
 
 	// From lower level
@@ -154,151 +281,163 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 	public void handleNodeLeft(NodeHandle handle) {
 		strategyLog.debug("Node left was called in the strategy. Checking if we are new initiator to any app...");
 
-		this.checkNodeIsInitiator();
+		gossipPacer.churn();
+		ownershipTracker.leafSetChanged();
 	}
 
+	/**
+	 * Checks (shortly) for all stored apps whether we are initiator.
+	 */
 	public void checkNodeIsInitiator() {
+		ownershipTracker.checkAll();
+	}
 
-		strategyLog.debug("Check if node is initiator");
+	/**
+	 * Becomes initiator for the stored app if we are closest to it, or stops being initiator if not. Called by the ownership tracker only for ids
+	 * where this may have changed.
+	 * 
+	 * @param current
+	 * @param closest
+	 */
+	private void evaluateInitiator(final Id current, boolean closest) {
 
 		// TODO for some reason, sometimes, the new initiator node sometimes
 		// takes a LONG time to get new PAST data (up to two minutes). It will
 		// get it eventually, though.
 
-		IdSet locallyKnownPASTData = getSCPNode().getLocallyKnownPASTData();
-		for (Iterator<Id> i = locallyKnownPASTData.getIterator(); i.hasNext();) {
-			Id current = i.next();
-
-			strategyLog.debug("Current past data is %s", current);
-
-			if (node.getPastryNode().isClosest((rice.pastry.Id) current)) {
-				// we are closest to this node
-				strategyLog.debug("We are closest to id %s, evaluating whether this is an app... ", current);
-				getSCPNode().getLocallyKnownPASTData(current, new Continuation<Object, Exception>() {
-
-					@Override
-					public void receiveResult(Object result) {
-						if (result instanceof PastAppBinary) {
-
-							PastAppBinary binary = (PastAppBinary) result;
-							AppInfo appInfo = binary.getAppInfo();
-							byte[] code = binary.getData();
-
-							strategyLog.debug("Yes, found app %s...", appInfo.getName());
-
-							// We might already be the initiator, or on the way
-							// to becoming one.
-							Ensemble ensemble = ensembles.get(getSCPNode().getEnvironment().createIdHashFromArbitraryString(
-									appInfo.getName()));
-							if (ensemble != null) {
-								List<HelenaRole> deployer = ensemble.getRoles(DeployerRole.class);
-								List<HelenaRole> mainstorage = ensemble.getRoles(MainStorageRole.class);
-								List<HelenaRole> initor = ensemble.getRoles(InitiatorRole.class);
-								if (deployer.size() == 1 || mainstorage.size() == 1 || initor.size() == 1) {
-									strategyLog.debug("...but we are already initiator. Everything is fine.");
-									return;
-								}
+		strategyLog.debug("Current past data is %s", current);
+
+		if (closest) {
+			// we are closest to this node
+			strategyLog.debug("We are closest to id %s, evaluating whether this is an app... ", current);
+			getSCPNode().getLocallyKnownPASTData(current, new Continuation<Object, Exception>() {
+
+				@Override
+				public void receiveResult(Object result) {
+					if (result instanceof PastAppBinary) {
+
+						PastAppBinary binary = (PastAppBinary) result;
+						AppInfo appInfo = binary.getAppInfo();
+						byte[] code = binary.getData();
+
+						strategyLog.debug("Yes, found app %s...", appInfo.getName());
+
+						// We might already be the initiator, or on the way
+						// to becoming one.
+						Ensemble ensemble = ensembles.get(getSCPNode().getEnvironment().createIdHashFromArbitraryString(
+								appInfo.getName()));
+						if (ensemble != null) {
+							List<HelenaRole> deployer = ensemble.getRoles(DeployerRole.class);
+							List<HelenaRole> mainstorage = ensemble.getRoles(MainStorageRole.class);
+							List<HelenaRole> initor = ensemble.getRoles(InitiatorRole.class);
+							if (deployer.size() == 1 || mainstorage.size() == 1 || initor.size() == 1) {
+								strategyLog.debug("...but we are already initiator. Everything is fine.");
+								return;
 							}
+						}
 
-							strategyLog.debug("...and we are NOT initiator! Deploying!");
-
-							// we MAY also be the executor for this app which is
-							// NOT cared for currently
-							if (ensemble != null) {
-								strategyLog.debug("Checking if we already are EXECUTOR...");
-								Class<? extends HelenaRole> ex = ExecutorRole.class;
-								List<HelenaRole> rolesForApp = ensemble.getRoles(ex);
-								if (rolesForApp.size() == 1) {
-									strategyLog.debug("...but we are already EXECUTOR. Shutting this down...");
-									ExecutorRole r = ((ExecutorRole) rolesForApp.get(0));
-									r.stop();
-								} else {
-									strategyLog.debug("We are not EXECUTOR. Everything is fine.");
-								}
+						strategyLog.debug("...and we are NOT initiator! Deploying!");
+
+						// we MAY also be the executor for this app which is
+						// NOT cared for currently
+						if (ensemble != null) {
+							strategyLog.debug("Checking if we already are EXECUTOR...");
+							Class<? extends HelenaRole> ex = ExecutorRole.class;
+							List<HelenaRole> rolesForApp = ensemble.getRoles(ex);
+							if (rolesForApp.size() == 1) {
+								strategyLog.debug("...but we are already EXECUTOR. Shutting this down...");
+								ExecutorRole r = ((ExecutorRole) rolesForApp.get(0));
+								r.stop();
+							} else {
+								strategyLog.debug("We are not EXECUTOR. Everything is fine.");
 							}
-							// We re-use the deploy mechanism here!
+						}
+						// We re-use the deploy mechanism here!
 
-							synchronized (GossipHelenaBasedStrategy.this) {
-								if (!TESTMODE || !doNotDeployYet) {
-									handleDeployApplication(appInfo.getName(), appInfo.getRequirements(), code);
-								}
+						synchronized (GossipHelenaBasedStrategy.this) {
+							if (!TESTMODE || !doNotDeployYet) {
+								handleDeployApplication(appInfo.getName(), appInfo.getRequirements(), code);
 							}
-
-						} else {
-							strategyLog.debug("Not an app: " + result);
 						}
-					}
 
-					@Override
-					public void receiveException(Exception exception) {
-						// do nothing.
+					} else {
+						strategyLog.debug("Not an app: " + result);
+						ownershipTracker.notAnApp(current);
 					}
+				}
 
-				});
-			} else {
-				strategyLog
-						.debug("We are not closest to id %s, evaluating whether this is an app and we are initiator for it... ", current);
-				getSCPNode().getLocallyKnownPASTData(current, new Continuation<Object, Exception>() {
-
-					@Override
-					public void receiveResult(Object result) {
-						if (result instanceof PastAppBinary) {
-
-							PastAppBinary binary = (PastAppBinary) result;
-							AppInfo appInfo = binary.getAppInfo();
-							byte[] code = binary.getData();
-
-							strategyLog.debug("Yes, found app %s...", appInfo.getName());
-
-							// We might be the initiator
-							Ensemble ensemble = ensembles.get(getSCPNode().getEnvironment().createIdHashFromArbitraryString(
-									appInfo.getName()));
-							if (ensemble != null) {
-								Class<? extends HelenaRole> c = InitiatorRole.class;
-								List<HelenaRole> initRoles = ensemble.getRoles(c);
-								if (initRoles.size() == 1) {
-									strategyLog.debug("...and we are initiator! Shutting down initiator and main storage!");
-
-									// WHY IS THIS HERE?
-									// handleDeployApplication(appInfo.getName(),
-									// appInfo.getRequirements(), code);
-
-									HelenaRole initiatorRole = initRoles.get(0);
-
-									initiatorRole.stop();
-									c = MainStorageRole.class;
-									List<HelenaRole> storageRoles = ensemble.getRoles(c);
-									HelenaRole mainStorageRole = null;
-									if (storageRoles.size() == 1) {
-										mainStorageRole = storageRoles.get(0);
-										mainStorageRole.stop();
-									}
-
-									return;
+				@Override
+				public void receiveException(Exception exception) {
+					// do nothing.
+				}
+
+			});
+		} else {
+			strategyLog
+					.debug("We are not closest to id %s, evaluating whether this is an app and we are initiator for it... ", current);
+			getSCPNode().getLocallyKnownPASTData(current, new Continuation<Object, Exception>() {
+
+				@Override
+				public void receiveResult(Object result) {
+					if (result instanceof PastAppBinary) {
+
+						PastAppBinary binary = (PastAppBinary) result;
+						AppInfo appInfo = binary.getAppInfo();
+						byte[] code = binary.getData();
+
+						strategyLog.debug("Yes, found app %s...", appInfo.getName());
+
+						// We might be the initiator
+						Ensemble ensemble = ensembles.get(getSCPNode().getEnvironment().createIdHashFromArbitraryString(
+								appInfo.getName()));
+						if (ensemble != null) {
+							Class<? extends HelenaRole> c = InitiatorRole.class;
+							List<HelenaRole> initRoles = ensemble.getRoles(c);
+							if (initRoles.size() == 1) {
+								strategyLog.debug("...and we are initiator! Shutting down initiator and main storage!");
+
+								// WHY IS THIS HERE?
+								// handleDeployApplication(appInfo.getName(),
+								// appInfo.getRequirements(), code);
+
+								HelenaRole initiatorRole = initRoles.get(0);
+
+								initiatorRole.stop();
+								c = MainStorageRole.class;
+								List<HelenaRole> storageRoles = ensemble.getRoles(c);
+								HelenaRole mainStorageRole = null;
+								if (storageRoles.size() == 1) {
+									mainStorageRole = storageRoles.get(0);
+									mainStorageRole.stop();
 								}
+
+								return;
 							}
+						}
 
-							strategyLog.debug("...and we are not initiator. Everything is fine.");
+						strategyLog.debug("...and we are not initiator. Everything is fine.");
 
-						} else {
-							strategyLog.debug("Not an app.");
-						}
+					} else {
+						strategyLog.debug("Not an app.");
+						ownershipTracker.notAnApp(current);
 					}
+				}
 
-					@Override
-					public void receiveException(Exception exception) {
-						// do nothing.
-					}
+				@Override
+				public void receiveException(Exception exception) {
+					// do nothing.
+				}
 
-				});
-			}
+			});
 		}
 	}
 
 	@Override
 	public void handleNodeJoined(NodeHandle handle) {
-		// we might stop being initiator--- currently handled by direct
-		// messaging. Might also use this here.
+		gossipPacer.churn();
+
+		// we might stop being initiator
+		ownershipTracker.leafSetChanged();
 	}
 
 	@Override
@@ -316,13 +455,24 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 			GossipInfoMessage gi = (GossipInfoMessage) message;
 			Set<NodeInfo> knownNodes = gi.getKnownNodes();
 			mergeInfo(knownNodes);
-			checkNodeIsInitiator();
+			return;
+		}
+
+		if (message instanceof GossipDigestMessage) {
+			handleGossipDigest((GossipDigestMessage) message);
+			return;
+		}
+
+		if (message instanceof GossipDigestReplyMessage) {
+			handleGossipDigestReply((GossipDigestReplyMessage) message);
 			return;
 		}
 
 		if (message instanceof HelenaWrapperMessage) {
 			HelenaWrapperMessage wrapperMsg = (HelenaWrapperMessage) message;
 
+			handleAcks(wrapperMsg.getPiggybackedAcks());
+
 			// Depends on what kind of a message we have
 			RMessage wrapped = wrapperMsg.getWrapped();
 
@@ -332,15 +482,24 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 			if (wrapped instanceof RFrameworkRequestMessage)
 				handleFrameworkMessage(wrapperMsg.getMessageId(), (RFrameworkRequestMessage) wrapped);
 			if (wrapped instanceof RR2RMessage)
-				handleRoleMessage(wrapperMsg.getMessageId(), (RR2RMessage) wrapped);
+				handleRoleMessage(wrapperMsg.getMessageId(), (RR2RMessage) wrapped, wrapperMsg.isOneWay());
+		}
+
+		if (message instanceof HelenaWrapperAckMessage) {
+			handleAcks(((HelenaWrapperAckMessage) message).getAcknowledgedMessageIds());
+			return;
 		}
 
 		if ((message instanceof HelenaWrapperAnswerMessage)) {
 
 			HelenaWrapperAnswerMessage answerMsg = (HelenaWrapperAnswerMessage) message;
 
-			// Just drop it into the appropriate bin
-			incomingWrapperAnswerMessageCache.put(answerMsg.getMessageId(), answerMsg);
+			// Hand it directly to the waiting caller (if still waiting)
+			CompletableFuture<HelenaWrapperAnswerMessage> pending = pendingAnswers.remove(answerMsg.getMessageId());
+			if (pending != null)
+				pending.complete(answerMsg);
+			else
+				strategyLog.debug("Nobody waiting for answer %s any more; dropping it.", answerMsg.getMessageId().toStringFull());
 			return;
 		}
 
@@ -357,9 +516,10 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 	@Override
 	public void handleNewLocalPASTContent(Id msgid, NodeHandle nodeHandle, PastContent content) {
 
-		// Do nothing: The content is not really handled by past anyway; it is
-		// being sent here by an explicit message and then stored.
-		// Initiator switch is done by the methods for node add/removal
+		// The content is not really handled by past anyway; it is being sent
+		// here by an explicit message and then stored. But it may be an app
+		// we are (or no longer are) initiator for.
+		ownershipTracker.contentChanged(msgid);
 
 	}
 
@@ -372,6 +532,9 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 			ensemble.stopAll();
 		}
 
+		roleDispatcher.shutdown();
+		roleRunner.shutdown();
+
 		super.handleShutdown();
 	}
 
@@ -381,12 +544,7 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 		Id ensembleId = getSCPNode().getEnvironment().createIdHashFromArbitraryString(appName);
 
-		Ensemble ensemble = ensembles.get(ensembleId);
-		if (ensemble == null) {
-			// create it
-			ensemble = new Ensemble(ensembleId, this);
-			ensembles.put(ensembleId, ensemble);
-		}
+		Ensemble ensemble = getOrCreateEnsemble(ensembleId);
 
 		strategyLog.info("Created ensemble with ID %s", ensemble.getEnsembleId().toStringFull());
 
@@ -398,7 +556,7 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 			strategyLog.info("Sending RDeployAppMessage to deployer role %s", startNewRole);
 			RDeployAppMessage rdp = new RDeployAppMessage(null, startNewRole, appInfo, bytes);
-			incomingMessageCache.add(rdp);
+			deliverToMailbox(rdp);
 
 		} catch (RRoleCreationException e) {
 			strategyLog.info("Could not create deployer role");
@@ -412,15 +570,12 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 		strategyLog.info("Application to undeploy! Creating undeploy role.");
 
+		uiResponses.invalidate(appName);
+
 		// Create the first role
 		Id ensembleId = getSCPNode().getEnvironment().createIdHashFromArbitraryString(appName);
 
-		Ensemble ensemble = ensembles.get(ensembleId);
-		if (ensemble == null) {
-			// create it
-			ensemble = new Ensemble(ensembleId, this);
-			ensembles.put(ensembleId, ensemble);
-		}
+		Ensemble ensemble = getOrCreateEnsemble(ensembleId);
 
 		strategyLog.info("Created ensemble with ID %s", ensemble.getEnsembleId().toStringFull());
 
@@ -433,8 +588,8 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 			// Shortcut: Just deploy the message :-)
 			RUndeployAppMessage rdp = new RUndeployAppMessage(null, undeployer, appInfo);
-			strategyLog.info("Deploying message into cache...");
-			incomingMessageCache.add(rdp);
+			strategyLog.info("Deploying message into mailbox...");
+			deliverToMailbox(rdp);
 
 		} catch (RRoleCreationException e) {
 			// cannot happen.
@@ -442,52 +597,93 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 	}
 
 	@Override
-	public String appRequest(AppInfo appInfo, String appTarget, HttpServletRequest request, HttpServletResponse response)
+	public CompletableFuture<String> appRequest(AppInfo appInfo, String appTarget, HttpServletRequest request, HttpServletResponse response)
 			throws AppRequestException {
 
-		// We use a local Requester role for this; create a new one each time
-
 		Id ensembleId = getSCPNode().getEnvironment().createIdHashFromArbitraryString(appInfo.getName());
 
-		Ensemble ensemble = ensembles.get(ensembleId);
-		if (ensemble == null) {
-			// create it locally
-			ensemble = new Ensemble(ensembleId, this);
-			ensembles.put(ensembleId, ensemble);
-		}
-
-		try {
-			RoleId reqRole = ensemble.startNewRole(RequesterRole.class);
+		Ensemble ensemble = getOrCreateEnsemble(ensembleId);
 
-			Id routingId = getSCPNode().getEnvironment().createArbitraryId();
+		final Id routingId = getSCPNode().getEnvironment().createArbitraryId();
+		final CompletableFuture<String> uiResponse = new CompletableFuture<>();
 
-			RRequestorRequestMessage rdp = new RRequestorRequestMessage(null, reqRole, routingId, appInfo, appTarget,
-					request.getParameterMap());
-			strategyLog.info("Deploying message into cache...");
-			incomingMessageCache.add(rdp);
-
-			String result = uiResponseCache.get(routingId);
-			int mstowait = 10000;
-			int current = 0;
-			while (current < mstowait) {
+		// Identical GET requests are answered from the cache, or share the response of the one in flight
+		if ("GET".equals(request.getMethod())) {
+			String cacheKey = UIResponseCache.keyFor(appInfo.getName(), appTarget, request.getParameterMap());
+			String cached = uiResponses.get(cacheKey);
+			if (cached != null) {
+				strategyLog.debug("Answering UI request for %s from the cache.", appInfo.getName());
+				return CompletableFuture.completedFuture(cached);
+			}
+			CompletableFuture<String> inFlight = uiResponses.coalesce(cacheKey, routingId, uiResponse);
+			if (inFlight != null) {
+				strategyLog.debug("Identical UI request for %s is in flight, sharing its response.", appInfo.getName());
+				return inFlight;
+			}
+		}
 
+		// If we execute the app ourselves, there is no need for any roles.
+		for (HelenaRole executor : ensemble.getRoles(ExecutorRole.class)) {
+			if (((ExecutorRole) executor).isFullBooted()) {
+				strategyLog.debug("Executor of %s is local, handling UI request directly.", appInfo.getName());
+				String result;
+				long cacheTTL;
 				try {
-					Thread.sleep(200);
-					current += 200;
-				} catch (InterruptedException e) {
-					throw new AppRequestException("Interrupted while waiting for answer from App.");
+					result = handleLocalUI(appInfo.getName(), appTarget, request.getParameterMap());
+					cacheTTL = getLocalUICacheTTL(appInfo.getName(), appTarget, request.getParameterMap());
+				} catch (AppRequestException e) {
+					// never cache an error
+					result = e.getMessage();
+					cacheTTL = 0;
 				}
+				uiResponses.responded(routingId, result, cacheTTL);
+				uiResponse.complete(result);
+				return uiResponse;
+			}
+		}
+
+		// Otherwise, the local requester role of the app forwards it
 
-				result = uiResponseCache.get(routingId);
-				if (result != null)
-					return result;
+		try {
+			// register before delivering, so the response cannot overtake us
+			pendingUIResponses.put(routingId, uiResponse);
+
+			final TimerWheel.Timeout timeout = timer.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					CompletableFuture<String> pending = pendingUIResponses.remove(routingId);
+					if (pending != null) {
+						strategyLog.error("Timeout waiting for UI response.");
+						pending.completeExceptionally(new AppRequestException("Waited in vain for an answer from the app."));
+						for (HelenaRole requester : ensemble.getRoles(RequesterRole.class))
+							((RequesterRole) requester).responseTimedOut(routingId);
+					}
+				}
+			}, UI_RESPONSE_TIMEOUT);
+			uiResponse.whenComplete((result, t) -> timeout.cancel());
+
+			strategyLog.info("Deploying message into mailbox...");
+			RException failure;
+			synchronized (ensemble) {
+				// under the lock, so an idle requester cannot retire between being picked and getting the request (see retireRequester)
+				RoleId reqRole = getOrStartRequester(ensemble);
+				failure = deliverToMailbox(new RRequestorRequestMessage(null, reqRole, routingId, appInfo, appTarget, request.getParameterMap()));
+			}
+			if (failure != null) {
+				pendingUIResponses.remove(routingId);
+				AppRequestException e = new AppRequestException("Could not hand request to requester role", failure);
+				uiResponse.completeExceptionally(e);
+				throw e;
 			}
 
-			strategyLog.error("Timeout waiting for uiResponseCache.");
-			throw new AppRequestException("Waited in vain for an answer from the app.");
+			return uiResponse;
 
 		} catch (RRoleCreationException e) {
-			throw new AppRequestException("Could not start requester role", e);
+			pendingUIResponses.remove(routingId);
+			AppRequestException failure = new AppRequestException("Could not start requester role", e);
+			uiResponse.completeExceptionally(failure);
+			throw failure;
 		}
 
 	}
@@ -501,14 +697,12 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 	@Override
 	public List<NodeInfo> getNeighbourInformations() {
-		List<NodeInfo> listNodeInfo = new ArrayList<>();
-		listNodeInfo.addAll(knownNodes.values());
-		return listNodeInfo;
+		return knownNodes.snapshot().getNodes();
 	}
 
 	@Override
 	public NodeInfo getNeighbourInformation(Id id) {
-		return knownNodes.get(id);
+		return knownNodes.snapshot().get(id);
 	}
 
 	@Override
@@ -522,7 +716,7 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 		return set;
 	}
 
-	private void handleRoleMessage(Id exchangeMessageId, RR2RMessage wrapped) {
+	private void handleRoleMessage(Id exchangeMessageId, RR2RMessage wrapped, boolean oneWay) {
 
 		Id sourceNodeId = wrapped.getFromRole().getNodeId();
 
@@ -545,8 +739,22 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 			return;
 		}
 
-		// else: it is OK! We add it to the queue
-		incomingMessageCache.add(wrapped);
+		RException failure = deliverToMailbox(wrapped);
+		if (failure != null) {
+			RRouteRoleMessageResult roleBasedResult = new RRouteRoleMessageResult(failure);
+			HelenaWrapperR2RAnswerMessage answer = new HelenaWrapperR2RAnswerMessage(getSCPNode().getId(), sourceNodeId, roleBasedResult,
+					exchangeMessageId);
+			getSCPNode().sendMessage(answer, sourceNodeId);
+			return;
+		}
+
+		// else: it is OK! It is in the mailbox of the role
+
+		if (oneWay) {
+			// no answer message of its own; the ack goes back later
+			queueAck(sourceNodeId, exchangeMessageId);
+			return;
+		}
 
 		HelenaWrapperR2RAnswerMessage msg = new HelenaWrapperR2RAnswerMessage(getSCPNode().getId(), sourceNodeId,
 				new RRouteRoleMessageResult(), exchangeMessageId);
@@ -554,13 +762,19 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 	}
 
+	/**
+	 * Incoming messages are handled on several lanes concurrently, so ensembles must be created atomically.
+	 * 
+	 * @param ensembleId
+	 * @return
+	 */
+	private Ensemble getOrCreateEnsemble(Id ensembleId) {
+		return ensembles.computeIfAbsent(ensembleId, id -> new Ensemble(id, this));
+	}
+
 	public RoleId createLocalRoleInstance(Id ensembleId, Class<? extends HelenaRole> roleType) throws RRoleCreationException {
 
-		Ensemble thisEnsemble = ensembles.get(ensembleId);
-		if (thisEnsemble == null) {
-			thisEnsemble = new Ensemble(ensembleId, this);
-			ensembles.put(ensembleId, thisEnsemble);
-		}
+		Ensemble thisEnsemble = getOrCreateEnsemble(ensembleId);
 
 		return thisEnsemble.startNewRole(roleType);
 	}
@@ -572,11 +786,7 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 			Id ensembleId = msg.getFromRole().getEnsembleId();
 			Class<?> roleType = msg.getRoleType();
 
-			Ensemble thisEnsemble = ensembles.get(ensembleId);
-			if (thisEnsemble == null) {
-				thisEnsemble = new Ensemble(ensembleId, this);
-				ensembles.put(ensembleId, thisEnsemble);
-			}
+			Ensemble thisEnsemble = getOrCreateEnsemble(ensembleId);
 
 			RFrameworkMessage answer = null;
 			try {
@@ -637,28 +847,116 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 	}
 
 	private void mergeInfo(Set<NodeInfo> nodesFromOutside) {
+		MembershipView.Snapshot before = knownNodes.snapshot();
 
-		for (NodeInfo nodeFromOutside : nodesFromOutside) {
+		// We know best about ourselves.
+		for (NodeInfo merged : knownNodes.merge(nodesFromOutside, getNodeInfo().getId())) {
+			if (isChange(before.get(merged.getId()), merged))
+				gossipPacer.churn();
+			executorLocations.nodeInfoChanged(merged);
+		}
+	}
 
-			// We know best about ourselves.
-			if (nodeFromOutside.equals(getNodeInfo()))
-				continue;
+	/**
+	 * Whether a newer node info changes the view beyond the usual refresh: a new node, other roles, or a jump of its load.
+	 * 
+	 * @param alreadyKnown
+	 * @param newer
+	 * @return
+	 */
+	private boolean isChange(NodeInfo alreadyKnown, NodeInfo newer) {
+		return alreadyKnown == null || !alreadyKnown.getAppRoles().equals(newer.getAppRoles())
+				|| Math.abs(alreadyKnown.getCpuLoad() - newer.getCpuLoad()) >= CPU_LOAD_SPIKE;
+	}
+
+	private List<NodeInfo> getKnownNodesWithOurselves() {
+		List<NodeInfo> knownNodesWithOurselves = new ArrayList<>();
+		knownNodesWithOurselves.addAll(knownNodes.snapshot().getNodes());
+		knownNodesWithOurselves.add(getNodeInfo());
+		return knownNodesWithOurselves;
+	}
 
-			NodeInfo alreadyKnown = knownNodes.get(nodeFromOutside.getId());
-			if (alreadyKnown == null || (alreadyKnown.getTimestamp() < nodeFromOutside.getTimestamp()))
-				knownNodes.put(nodeFromOutside.getId(), nodeFromOutside);
+	private void sendGossipDigestTo(Id nodeId) {
+		Map<Id, Long> digest = new HashMap<>();
+		Map<Id, Long> heartbeats = new HashMap<>();
+		for (NodeInfo nodeInfo : getKnownNodesWithOurselves()) {
+			digest.put(nodeInfo.getId(), nodeInfo.getVersion());
+			heartbeats.put(nodeInfo.getId(), nodeInfo.getTimestamp());
 		}
+
+		getSCPNode().sendMessage(new GossipDigestMessage(getNodeInfo().getId(), nodeId, digest, heartbeats), nodeId);
 	}
 
-	public void removeOldKnownNodes() {
+	/**
+	 * Takes over the heartbeats of a digest, answers it with the node infos whose content is newer here and asks for those whose content is newer at
+	 * the peer. Nothing is answered if the content versions agree.
+	 * 
+	 * @param message
+	 */
+	private void handleGossipDigest(GossipDigestMessage message) {
+		Id peerId = message.getFrom();
+		Map<Id, Long> digest = message.getDigest();
+		Map<Id, Long> heartbeats = message.getHeartbeats();
+		knownNodes.heartbeats(heartbeats);
+
+		Set<NodeInfo> newer = new HashSet<>();
+		for (NodeInfo nodeInfo : getKnownNodesWithOurselves()) {
+			Long version = digest.get(nodeInfo.getId());
+			if (!nodeInfo.getId().equals(peerId) && (version == null || version < nodeInfo.getVersion()))
+				newer.add(nodeInfo);
+		}
 
-		List<NodeInfo> copy = new ArrayList<>();
-		copy.addAll(knownNodes.values());
+		Set<Id> wanted = new HashSet<>();
+		MembershipView.Snapshot known = knownNodes.snapshot();
+		long now = System.currentTimeMillis();
+		for (Map.Entry<Id, Long> entry : digest.entrySet()) {
+			// We know best about ourselves; and there is no point in asking for node infos which are expired anyway.
+			Long heartbeat = heartbeats.get(entry.getKey());
+			if (entry.getKey().equals(getNodeInfo().getId()) || heartbeat == null || now - heartbeat > Configuration.NODE_INFO_EXPIRATION_INTERVAL)
+				continue;
+			NodeInfo alreadyKnown = known.get(entry.getKey());
+			if (alreadyKnown == null || alreadyKnown.getVersion() < entry.getValue())
+				wanted.add(entry.getKey());
+			// the peer knows a node we do not: the views have not converged
+			if (alreadyKnown == null)
+				gossipPacer.churn();
+		}
+
+		if (newer.isEmpty() && wanted.isEmpty())
+			return;
 
-		for (NodeInfo nodeInfo : copy) {
+		getSCPNode().sendMessage(new GossipDigestReplyMessage(getNodeInfo().getId(), peerId, newer, wanted), peerId);
+	}
 
-			if (nodeInfo.isTooOld())
-				knownNodes.remove(nodeInfo.getId());
+	/**
+	 * Merges what the peer had newer and pushes what it asked for.
+	 * 
+	 * @param message
+	 */
+	private void handleGossipDigestReply(GossipDigestReplyMessage message) {
+		Id peerId = message.getFrom();
+		if (!message.getNewer().isEmpty()) {
+			mergeInfo(message.getNewer());
+		}
+
+		Set<NodeInfo> wanted = new HashSet<>();
+		MembershipView.Snapshot known = knownNodes.snapshot();
+		for (Id nodeId : message.getWanted()) {
+			NodeInfo nodeInfo = nodeId.equals(getNodeInfo().getId()) ? getNodeInfo() : known.get(nodeId);
+			if (nodeInfo != null)
+				wanted.add(nodeInfo);
+		}
+		if (wanted.isEmpty())
+			return;
+
+		getSCPNode().sendMessage(new GossipInfoMessage(getNodeInfo().getId(), peerId, wanted), peerId);
+	}
+
+	public void removeOldKnownNodes() {
+
+		for (NodeInfo nodeInfo : knownNodes.removeTooOld()) {
+			executorLocations.nodeGone(nodeInfo.getId());
+			gossipPacer.churn();
 		}
 
 	}
@@ -686,18 +984,29 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 	}
 
 	public RFrameworkMessage routeFrameworkMessage(RFrameworkRequestMessage message) throws RTimeoutException {
+		return waitForReturn(routeFrameworkMessageAsync(message));
+	}
+
+	/**
+	 * Non-blocking variant of {@link #routeFrameworkMessage(RFrameworkRequestMessage)}. The returned future fails with an {@link RTimeoutException} if no
+	 * answer arrives in time.
+	 * 
+	 * @param message
+	 * @return
+	 */
+	public CompletableFuture<RFrameworkMessage> routeFrameworkMessageAsync(RFrameworkRequestMessage message) {
 
-		// wrap in an SCP message, send, wait for result.
+		// wrap in an SCP message, send, result comes in later.
 		Id targetNode = message.getTargetNode();
 
 		Id randomWaitId = getSCPNode().getEnvironment().createArbitraryId();
 
 		HelenaWrapperMessage msg = new HelenaWrapperMessage(getSCPNode().getId(), message.getTargetNode(), message, randomWaitId);
+		msg.setPiggybackedAcks(takeUnsentAcks(targetNode));
+		CompletableFuture<HelenaWrapperAnswerMessage> answer = expectAnswer(randomWaitId, 5000);
 		getSCPNode().sendMessage(msg, targetNode);
 
-		HelenaWrapperFrameworkResultMessage rMsg = (HelenaWrapperFrameworkResultMessage) waitForReturn(randomWaitId);
-		RFrameworkMessage result = rMsg.getFrameworkBasedResult();
-		return result;
+		return answer.thenApply(rMsg -> ((HelenaWrapperFrameworkResultMessage) rMsg).getFrameworkBasedResult());
 	}
 
 	/**
@@ -708,114 +1017,361 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 	 * @throws RTimeoutException
 	 */
 	public RRouteRoleMessageResult routeRoleMessage(RR2RMessage message) throws RTimeoutException {
+		return waitForReturn(routeRoleMessageAsync(message));
+	}
+
+	/**
+	 * Non-blocking variant of {@link #routeRoleMessage(RR2RMessage)}. The returned future fails with an {@link RTimeoutException} if no answer arrives in
+	 * time.
+	 * 
+	 * @param message
+	 * @return
+	 */
+	public CompletableFuture<RRouteRoleMessageResult> routeRoleMessageAsync(RR2RMessage message) {
 
 		Id sourceNodeId = getSCPNode().getId();
 		Id randomWaitId = getSCPNode().getEnvironment().createArbitraryId();
 
 		HelenaWrapperMessage msg = new HelenaWrapperMessage(sourceNodeId, message.getToRole().getNodeId(), message, randomWaitId);
+		msg.setPiggybackedAcks(takeUnsentAcks(message.getToRole().getNodeId()));
+		CompletableFuture<HelenaWrapperAnswerMessage> answer = expectAnswer(randomWaitId, 5000);
 
 		getSCPNode().sendMessage(msg, message.getToRole().getNodeId());
 
-		HelenaWrapperR2RAnswerMessage rMsg = (HelenaWrapperR2RAnswerMessage) waitForReturn(randomWaitId);
-		RRouteRoleMessageResult result = rMsg.getRoleBasedResult();
+		return answer.thenApply(rMsg -> ((HelenaWrapperR2RAnswerMessage) rMsg).getRoleBasedResult());
+	}
+
+	/**
+	 * Routes a message in one-way mode: the target node only answers immediately if the message could not be delivered. Positive acks are piggybacked on
+	 * the next wrapper message back to this node, or sent in batches. The returned future fails with an {@link RTimeoutException} if no ack arrives in
+	 * time.
+	 * 
+	 * @param message
+	 * @return
+	 */
+	public CompletableFuture<RRouteRoleMessageResult> routeRoleMessageOneWay(RR2RMessage message) {
+
+		Id sourceNodeId = getSCPNode().getId();
+		Id targetNodeId = message.getToRole().getNodeId();
+		Id randomWaitId = getSCPNode().getEnvironment().createArbitraryId();
+
+		HelenaWrapperMessage msg = new HelenaWrapperMessage(sourceNodeId, targetNodeId, message, randomWaitId, true);
+		msg.setPiggybackedAcks(takeUnsentAcks(targetNodeId));
+		CompletableFuture<HelenaWrapperAnswerMessage> answer = expectAnswer(randomWaitId, getOneWayAckTimeout());
+
+		getSCPNode().sendMessage(msg, targetNodeId);
 
-		return result;
+		return answer.thenApply(rMsg -> ((HelenaWrapperR2RAnswerMessage) rMsg).getRoleBasedResult());
 	}
 
-	public <E extends RR2RMessage> E waitForIncomingMessage(int timeoutinms, Class<E> clazz) throws RTimeoutException {
+	public <E extends RR2RMessage> E waitForIncomingMessage(RoleId roleId, int timeoutinms, Class<E> clazz) throws RTimeoutException {
 		strategyLog.debug("Been asked to wait for incoming message %s", clazz.getSimpleName());
 		ArrayList<Class<? extends RR2RMessage>> classList = new ArrayList<Class<? extends RR2RMessage>>();
 
 		Class<? extends RR2RMessage> clazz2 = clazz;
 		classList.add(clazz2);
 
-		RR2RMessage msg = waitForIncomingMessages(timeoutinms, classList);
+		RR2RMessage msg = waitForIncomingMessages(roleId, timeoutinms, classList);
 		return clazz.cast(msg);
 	}
 
-	// TODO include looking for the target role id and whether this fits.
-	public RR2RMessage waitForIncomingMessages(int timeoutinms, Collection<Class<? extends RR2RMessage>> msgs) throws RTimeoutException {
-
-		int currentwaitingtime = 0;
-		RMessage found = null;
-		while (currentwaitingtime < timeoutinms) {
-			for (RMessage rMessage : incomingMessageCache) {
-
-				for (Class<? extends RR2RMessage> clazz : msgs) {
-					if (clazz.isInstance(rMessage)) {
-						found = rMessage;
-						break;
-					}
-				}
-			}
+	/**
+	 * Blocks until a message of one of the given types arrives in the mailbox of the given role, or the timeout has passed.
+	 * 
+	 * @param roleId
+	 * @param timeoutinms
+	 * @param msgs
+	 * @return
+	 * @throws RTimeoutException
+	 */
+	public RR2RMessage waitForIncomingMessages(RoleId roleId, int timeoutinms, Collection<Class<? extends RR2RMessage>> msgs) throws RTimeoutException {
 
-			if (found != null) {
-				incomingMessageCache.remove(found);
-				break;
-			}
+		RoleMailbox mailbox = mailboxes.get(roleId);
+		if (mailbox == null) {
+			strategyLog.error("No mailbox for role %s.", roleId);
+			throw new RTimeoutException();
+		}
 
-			try {
-				Thread.sleep(200);
-			} catch (InterruptedException e) {
-				break;
-			}
-			currentwaitingtime += 200;
+		RR2RMessage found = null;
+		try {
+			found = mailbox.take(timeoutinms, msgs);
+		} catch (InterruptedException e) {
+			// treated as timeout
 		}
 
 		if (found == null)
 			throw new RTimeoutException();
 
-		return (RR2RMessage) found;
+		return found;
+	}
+
+	/**
+	 * Non-blocking variant of {@link #waitForIncomingMessages(RoleId, int, Collection)}.
+	 * 
+	 * @param roleId
+	 * @param msgs
+	 * @return the message, or null if there is none (or no mailbox)
+	 */
+	public RR2RMessage pollIncomingMessage(RoleId roleId, Collection<Class<? extends RR2RMessage>> msgs) {
+		RoleMailbox mailbox = mailboxes.get(roleId);
+		if (mailbox == null)
+			return null;
+		return mailbox.poll(msgs);
+	}
+
+	public void setMailboxListener(RoleId roleId, Runnable listener) {
+		RoleMailbox mailbox = mailboxes.get(roleId);
+		if (mailbox != null)
+			mailbox.setArrivalListener(listener);
+	}
+
+	public RoleDispatcher getRoleDispatcher() {
+		return roleDispatcher;
+	}
+
+	public RoleRunner getRoleRunner() {
+		return roleRunner;
+	}
+
+	public ExecutorLocationCache getExecutorLocationCache() {
+		return executorLocations;
+	}
+
+	public void openMailbox(RoleId roleId) {
+		mailboxes.put(roleId, new RoleMailbox(roleId, Configuration.MAILBOX_CAPACITY, Configuration.MAILBOX_MESSAGE_TTL,
+				Configuration.MAILBOX_OVERFLOW_POLICY));
+	}
+
+	/**
+	 * Puts the message into the mailbox of its target role.
+	 * 
+	 * @param message
+	 * @return null if the message was queued, otherwise the reason why not
+	 */
+	private RException deliverToMailbox(RR2RMessage message) {
+		RoleMailbox mailbox = mailboxes.get(message.getToRole());
+		if (mailbox == null) {
+			undeliverableMessages.incrementAndGet();
+			strategyLog.error("No mailbox for role %s; dropping %s.", message.getToRole(), message.getClass().getSimpleName());
+			return new RRoleNotFoundException("Role has no mailbox.");
+		}
+		if (!mailbox.put(message)) {
+			strategyLog.error("Mailbox of role %s is full; rejecting %s.", message.getToRole(), message.getClass().getSimpleName());
+			return new RMailboxFullException("Mailbox of role is full.");
+		}
+		return null;
 	}
 
-	public String handleLocalUI(String appName, String target, Map<String, String[]> properties) {
+	/**
+	 * Returns the counters of all role mailboxes of this node, including the ones already closed.
+	 * 
+	 * @return
+	 */
+	public MailboxStatistics getMailboxStatistics() {
+		int count = 0;
+		long depth = 0;
+		long dropped = closedMailboxesDropped.get();
+		long expired = closedMailboxesExpired.get();
+		long rejected = closedMailboxesRejected.get();
+		for (RoleMailbox mailbox : mailboxes.values()) {
+			count++;
+			depth += mailbox.size();
+			dropped += mailbox.getDropped();
+			expired += mailbox.getExpired();
+			rejected += mailbox.getRejected();
+		}
+		return new MailboxStatistics(count, depth, dropped, expired, rejected, undeliverableMessages.get());
+	}
+
+	public String handleLocalUI(String appName, String target, Map<String, String[]> properties) throws AppRequestException {
 		return getSCPNode().getLocalAppResult(appName, target, properties);
 	}
 
-	public Set<NodeInfo> getGossiplyKnownNodes() {
-		Set<NodeInfo> setOfKnownNodes = new HashSet<>();
-		setOfKnownNodes.addAll(this.knownNodes.values());
-		return setOfKnownNodes;
+	public long getLocalUICacheTTL(String appName, String target, Map<String, String[]> properties) {
+		return getSCPNode().getLocalAppCacheTTL(appName, target, properties);
+	}
+
+	/**
+	 * @return the nodes known through gossipping (without ourselves); an immutable snapshot, sorted by id
+	 */
+	public List<NodeInfo> getGossiplyKnownNodes() {
+		return knownNodes.snapshot().getNodes();
 	}
 
 	public Id createIdFromString(String string) {
 		return getSCPNode().getEnvironment().createIdHashFromArbitraryString(string);
 	}
 
-	public void setUIResponseFor(Id routingId, AppInfo appInfo, String target, String result) {
-		uiResponseCache.put(routingId, result);
+	/**
+	 * Returns the requester role of the app on this node, starting it if there is none (anymore).
+	 * 
+	 * @param ensemble
+	 * @return
+	 * @throws RRoleCreationException
+	 */
+	private RoleId getOrStartRequester(Ensemble ensemble) throws RRoleCreationException {
+		synchronized (ensemble) {
+			List<HelenaRole> requesters = ensemble.getRoles(RequesterRole.class);
+			if (!requesters.isEmpty())
+				return requesters.get(0).getRoleId();
+			return ensemble.startNewRole(RequesterRole.class);
+		}
 	}
 
-	private AbstractSCPDirectMessage waitForReturn(Id randomWaitId) throws RTimeoutException {
+	/**
+	 * Removes the idle requester from its ensemble, unless UI requests have been queued for it in the meantime. Requests are handed to the requester
+	 * under the same lock, so none can get lost in between.
+	 * 
+	 * @param requester
+	 * @return whether the requester has been removed and has to finish
+	 */
+	public boolean retireRequester(RequesterRole requester) {
+		Ensemble ensemble = ensembles.get(requester.getRoleId().getEnsembleId());
+		if (ensemble == null) {
+			roleShutdown(requester);
+			return true;
+		}
+		synchronized (ensemble) {
+			RoleMailbox mailbox = mailboxes.get(requester.getRoleId());
+			if (mailbox != null && mailbox.size() > 0)
+				return false;
+			roleShutdown(requester);
+			return true;
+		}
+	}
 
-		int timeoutinms = 5000;
-		int currentwaitingtime = 0;
-		HelenaWrapperAnswerMessage msg = null;
-		while (currentwaitingtime < timeoutinms) {
+	/**
+	 * Fails the waiting UI request, if it is still waiting.
+	 * 
+	 * @param routingId
+	 * @param reason
+	 */
+	public void failUIResponseFor(Id routingId, String reason) {
+		CompletableFuture<String> uiResponse = pendingUIResponses.remove(routingId);
+		if (uiResponse != null)
+			uiResponse.completeExceptionally(new AppRequestException(reason));
+	}
 
-			msg = incomingWrapperAnswerMessageCache.remove(randomWaitId);
-			if (msg != null)
-				break;
+	/**
+	 * Hands the response to the waiting UI request, if it is still waiting.
+	 * 
+	 * @param routingId
+	 * @param appInfo
+	 * @param target
+	 * @param result
+	 * @param cacheTTL
+	 *            milliseconds the result may be reused for identical GET requests
+	 */
+	public void setUIResponseFor(Id routingId, AppInfo appInfo, String target, String result, long cacheTTL) {
+		CompletableFuture<String> uiResponse = pendingUIResponses.remove(routingId);
+		uiResponses.responded(routingId, result, cacheTTL);
+		if (uiResponse != null)
+			uiResponse.complete(result);
+		else
+			strategyLog.debug("UI response for %s arrived after the request gave up.", routingId);
+	}
 
-			try {
-				Thread.sleep(200);
-			} catch (InterruptedException e) {
-				break;
+	/**
+	 * Registers a pending answer for the wrapper message with the given id. Must be called BEFORE the wrapper message is sent. The answer fails with an
+	 * {@link RTimeoutException} if it does not arrive in time.
+	 * 
+	 * @param randomWaitId
+	 * @param timeoutinms
+	 * @return
+	 */
+	private CompletableFuture<HelenaWrapperAnswerMessage> expectAnswer(final Id randomWaitId, int timeoutinms) {
+		CompletableFuture<HelenaWrapperAnswerMessage> answer = new CompletableFuture<>();
+		pendingAnswers.put(randomWaitId, answer);
+
+		final TimerWheel.Timeout timeout = timer.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				CompletableFuture<HelenaWrapperAnswerMessage> pending = pendingAnswers.remove(randomWaitId);
+				if (pending != null)
+					pending.completeExceptionally(new RTimeoutException());
 			}
-			currentwaitingtime += 200;
+		}, timeoutinms);
+
+		answer.whenComplete((a, t) -> timeout.cancel());
+		return answer;
+	}
+
+	/**
+	 * Completes the pending one-way messages with the given ids successfully.
+	 * 
+	 * @param acknowledgedMessageIds
+	 */
+	private void handleAcks(List<Id> acknowledgedMessageIds) {
+		if (acknowledgedMessageIds == null)
+			return;
+
+		for (Id messageId : acknowledgedMessageIds) {
+			CompletableFuture<HelenaWrapperAnswerMessage> pending = pendingAnswers.remove(messageId);
+			if (pending != null)
+				pending.complete(new HelenaWrapperR2RAnswerMessage(getSCPNode().getId(), getSCPNode().getId(), new RRouteRoleMessageResult(),
+						messageId));
 		}
+	}
 
-		if (msg == null)
-			throw new RTimeoutException();
+	private void queueAck(Id nodeId, Id messageId) {
+		List<Id> full = null;
+		synchronized (unsentAcks) {
+			List<Id> acks = unsentAcks.get(nodeId);
+			if (acks == null) {
+				acks = new ArrayList<>();
+				unsentAcks.put(nodeId, acks);
+			}
+			acks.add(messageId);
+			if (acks.size() >= MAX_UNSENT_ACKS)
+				full = unsentAcks.remove(nodeId);
+		}
+
+		if (full != null)
+			getSCPNode().sendMessage(new HelenaWrapperAckMessage(getSCPNode().getId(), nodeId, full), nodeId);
+	}
+
+	private List<Id> takeUnsentAcks(Id nodeId) {
+		synchronized (unsentAcks) {
+			List<Id> acks = unsentAcks.remove(nodeId);
+			return acks != null ? acks : new ArrayList<Id>();
+		}
+	}
+
+	/**
+	 * Sends all acks which could not be piggybacked so far.
+	 */
+	private void flushAcks() {
+		Map<Id, List<Id>> toSend;
+		synchronized (unsentAcks) {
+			toSend = new HashMap<>(unsentAcks);
+			unsentAcks.clear();
+		}
 
-		return msg;
+		for (Map.Entry<Id, List<Id>> entry : toSend.entrySet())
+			getSCPNode().sendMessage(new HelenaWrapperAckMessage(getSCPNode().getId(), entry.getKey(), entry.getValue()), entry.getKey());
+	}
+
+	/**
+	 * Time to wait for the ack of a one-way message: at least two gossip rounds, as the ack may only be flushed at the end of the next one.
+	 */
+	private int getOneWayAckTimeout() {
+		return Math.max(ONE_WAY_ACK_TIMEOUT, 2 * Configuration.GOSSIP_MAX_INTERVAL);
+	}
+
+	private <T> T waitForReturn(CompletableFuture<T> answer) throws RTimeoutException {
+
+		try {
+			return answer.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RTimeoutException();
+		}
 	}
 
 	private Map<String, AppInfo> getAppMap() {
 		Map<String, AppInfo> allKnownApps = new HashMap<>();
 
-		Collection<NodeInfo> values = knownNodes.values();
-		for (NodeInfo nodeInfo : values) {
+		for (NodeInfo nodeInfo : knownNodes.snapshot().getNodes()) {
 
 			Set<AppInfo> keySet = nodeInfo.getAppRoles().keySet();
 			for (AppInfo appInfo : keySet) {
@@ -827,15 +1383,24 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 
 	public void addAppRole(AppInfo appName, String appRole, String roleStatus) {
 		if (getNodeInfo() != null) {
+			boolean isNew = !getNodeInfo().hasRoleForApp(appName, appRole);
 			getNodeInfo().addRoleForApp(appName, appRole, roleStatus);
 			strategyLog.debug("Added role " + appRole + " for app " + appName);
+			// status updates are spread with the normal gossip
+			if (isNew)
+				gossipPacer.churn();
 		}
 	}
 
 	public void removeAppRole(AppInfo appName, String appRole) {
 		if (getNodeInfo() != null) {
+			if (!getNodeInfo().hasRoleForApp(appName, appRole))
+				return;
 			getNodeInfo().removeRoleForApp(appName, appRole);
 			strategyLog.debug("Removed role " + appRole + " for app " + appName);
+			gossipPacer.churn();
+			if (ROLE_EXECUTOR.equals(appRole))
+				executorLocations.nodeInfoChanged(getNodeInfo());
 		}
 	}
 
@@ -843,18 +1408,32 @@ public class GossipHelenaBasedStrategy extends AbstractStrategy {
 		getSCPNode().bootLocalApp(appInfo.getName());
 	}
 
+	/**
+	 * Sends the node our own node info right away, instead of waiting for it to spread through the digest exchanges. Everything else reaches the node
+	 * through those.
+	 * 
+	 * @param nodeId
+	 */
 	public void gossipInformationTo(Id nodeId) {
 
-		Set<NodeInfo> knownNodesWithOurselves = new HashSet<>();
-		knownNodesWithOurselves.addAll(knownNodes.values());
-		knownNodesWithOurselves.add(getNodeInfo());
+		Set<NodeInfo> ourselves = new HashSet<>();
+		ourselves.add(getNodeInfo());
 
-		GossipInfoMessage m = new GossipInfoMessage(getNodeInfo().getId(), nodeId, knownNodesWithOurselves);
+		strategyLog.debug("Gossiping our node info to %s.", nodeId);
+		GossipInfoMessage m = new GossipInfoMessage(getNodeInfo().getId(), nodeId, ourselves);
 		getSCPNode().sendMessage(m, nodeId);
 	}
 
 	public void roleShutdown(HelenaRole helenaRole) {
 
+		RoleMailbox mailbox = mailboxes.remove(helenaRole.getRoleId());
+		if (mailbox != null) {
+			mailbox.close();
+			closedMailboxesDropped.addAndGet(mailbox.getDropped());
+			closedMailboxesExpired.addAndGet(mailbox.getExpired());
+			closedMailboxesRejected.addAndGet(mailbox.getRejected());
+		}
+
 		if (ensembles != null) {
 			Ensemble ensemble = ensembles.get(helenaRole.getRoleId().getEnsembleId());
 			if (ensemble != null)
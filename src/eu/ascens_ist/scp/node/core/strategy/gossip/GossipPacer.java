@@ -0,0 +1,91 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+/**
+ * Decides how often and with how many peers a node gossips. While the view changes (nodes joining or leaving, roles changing, load jumping), the
+ * node gossips at the shortest interval with the largest fanout; every round without such a change halves the speed again, down to the longest
+ * interval with the smallest fanout.
+ *
+ */
+public class GossipPacer {
+
+	private int minInterval;
+
+	private int maxInterval;
+
+	private int minFanout;
+
+	private int maxFanout;
+
+	/**
+	 * Number of halvings of the interval from the longest to the shortest one
+	 */
+	private int maxHeat;
+
+	private int heat;
+
+	private boolean churned;
+
+	/**
+	 * @param minIntervalinms
+	 *            interval while the view changes
+	 * @param maxIntervalinms
+	 *            interval once the view has settled
+	 * @param minFanout
+	 *            peers per round once the view has settled
+	 * @param maxFanout
+	 *            peers per round while the view changes
+	 */
+	public GossipPacer(int minIntervalinms, int maxIntervalinms, int minFanout, int maxFanout) {
+		this.minInterval= Math.max(minIntervalinms, 1);
+		this.maxInterval= Math.max(maxIntervalinms, this.minInterval);
+		this.minFanout= Math.max(minFanout, 1);
+		this.maxFanout= Math.max(maxFanout, this.minFanout);
+
+		// at least one step, so the fanout adapts even with a fixed interval
+		maxHeat= 1;
+		while ( (this.maxInterval >> maxHeat) > this.minInterval)
+			maxHeat++;
+
+		// start fast, a new node has everything to learn
+		this.heat= maxHeat;
+	}
+
+	/**
+	 * Notes that the view has changed; gossip goes to full speed.
+	 */
+	public synchronized void churn() {
+		heat= maxHeat;
+		churned= true;
+	}
+
+	/**
+	 * Notes that a gossip round is over; if nothing has changed since the last one, gossip slows down by one step.
+	 */
+	public synchronized void roundDone() {
+		if (!churned && heat > 0)
+			heat--;
+		churned= false;
+	}
+
+	/**
+	 * @return milliseconds until the next round
+	 */
+	public synchronized int getInterval() {
+		return Math.max(maxInterval >> heat, minInterval);
+	}
+
+	/**
+	 * @return number of peers to gossip with in the next round
+	 */
+	public synchronized int getFanout() {
+		return minFanout + (maxFanout - minFanout) * heat / maxHeat;
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+/**
+ * Aggregated counters of the role mailboxes of one node.
+ * 
+ */
+public class MailboxStatistics {
+
+	private int mailboxes;
+
+	private long depth;
+
+	private long dropped;
+
+	private long expired;
+
+	private long rejected;
+
+	private long undeliverable;
+
+	public MailboxStatistics(int mailboxes, long depth, long dropped, long expired, long rejected, long undeliverable) {
+		this.mailboxes= mailboxes;
+		this.depth= depth;
+		this.dropped= dropped;
+		this.expired= expired;
+		this.rejected= rejected;
+		this.undeliverable= undeliverable;
+	}
+
+	/**
+	 * @return number of open mailboxes
+	 */
+	public int getMailboxes() {
+		return mailboxes;
+	}
+
+	/**
+	 * @return number of messages currently queued in all open mailboxes
+	 */
+	public long getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return messages discarded due to overflow or because their mailbox was closed
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * @return messages evicted because they were not picked up in time
+	 */
+	public long getExpired() {
+		return expired;
+	}
+
+	/**
+	 * @return messages refused because the mailbox was full
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return messages for roles without a mailbox (e.g. already shut down)
+	 */
+	public long getUndeliverable() {
+		return undeliverable;
+	}
+
+	@Override
+	public String toString() {
+		return "Mailboxes: " + mailboxes + ", depth: " + depth + ", dropped: " + dropped + ", expired: " + expired + ", rejected: " + rejected
+				+ ", undeliverable: " + undeliverable;
+	}
+
+}
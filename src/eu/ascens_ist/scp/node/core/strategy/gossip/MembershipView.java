@@ -0,0 +1,165 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.info.NodeInfo;
+
+/**
+ * The nodes known through gossipping (without ourselves), as an immutable snapshot which is replaced as a whole on every change. Readers (roles, web
+ * threads) get a consistent view without locking or copying; the gossip threads merge and expire node infos without blocking them.
+ *
+ * Only a new content version of a node info makes a new snapshot; heartbeats are taken over into the known node infos in place.
+ *
+ */
+public class MembershipView {
+
+	/**
+	 * One version of the view. Never changes once published, apart from the heartbeats of its node infos.
+	 */
+	public static final class Snapshot {
+
+		private final long version;
+
+		private final Map<Id, NodeInfo> nodeMap;
+
+		private final List<NodeInfo> nodes;
+
+		private Snapshot(long version, Map<Id, NodeInfo> nodeMap) {
+			this.version= version;
+			this.nodeMap= Collections.unmodifiableMap(nodeMap);
+
+			List<NodeInfo> nodes= new ArrayList<>(nodeMap.values());
+			Collections.sort(nodes);
+			this.nodes= Collections.unmodifiableList(nodes);
+		}
+
+		/**
+		 * @return number of changes of the view before this snapshot
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * @param id
+		 * @return the node info, or null if the node is not known
+		 */
+		public NodeInfo get(Id id) {
+			return nodeMap.get(id);
+		}
+
+		/**
+		 * @return the node infos, sorted by id
+		 */
+		public List<NodeInfo> getNodes() {
+			return nodes;
+		}
+
+		public int size() {
+			return nodes.size();
+		}
+	}
+
+	private AtomicReference<Snapshot> current;
+
+	public MembershipView() {
+		this.current= new AtomicReference<>(new Snapshot(0, new HashMap<Id, NodeInfo>()));
+	}
+
+	/**
+	 * @return the current version of the view
+	 */
+	public Snapshot snapshot() {
+		return current.get();
+	}
+
+	/**
+	 * Takes over the node infos with a newer content version than the known ones, and the heartbeats of the others.
+	 *
+	 * @param nodeInfos
+	 * @param ownId
+	 *            the node infos about ourselves are ignored; we know best about ourselves
+	 * @return the node infos taken over
+	 */
+	public List<NodeInfo> merge(Collection<NodeInfo> nodeInfos, Id ownId) {
+		while (true) {
+			Snapshot before= current.get();
+			Map<Id, NodeInfo> nodeMap= null;
+			List<NodeInfo> merged= new ArrayList<>();
+
+			for (NodeInfo nodeInfo : nodeInfos) {
+				if (nodeInfo.getId().equals(ownId))
+					continue;
+
+				NodeInfo alreadyKnown= (nodeMap != null ? nodeMap : before.nodeMap).get(nodeInfo.getId());
+				if (alreadyKnown == null || alreadyKnown.getVersion() < nodeInfo.getVersion()) {
+					if (alreadyKnown != null)
+						nodeInfo.heartbeat(alreadyKnown.getTimestamp());
+					if (nodeMap == null)
+						nodeMap= new HashMap<>(before.nodeMap);
+					nodeMap.put(nodeInfo.getId(), nodeInfo);
+					merged.add(nodeInfo);
+				} else
+					alreadyKnown.heartbeat(nodeInfo.getTimestamp());
+			}
+
+			if (nodeMap == null || current.compareAndSet(before, new Snapshot(before.version + 1, nodeMap)))
+				return merged;
+		}
+	}
+
+	/**
+	 * Takes over the heartbeats of known nodes.
+	 *
+	 * @param heartbeats
+	 *            heartbeat by node id
+	 */
+	public void heartbeats(Map<Id, Long> heartbeats) {
+		Snapshot known= current.get();
+		for (Map.Entry<Id, Long> entry : heartbeats.entrySet()) {
+			NodeInfo nodeInfo= known.get(entry.getKey());
+			if (nodeInfo != null)
+				nodeInfo.heartbeat(entry.getValue());
+		}
+	}
+
+	/**
+	 * Forgets the node infos which are too old.
+	 *
+	 * @return the node infos forgotten
+	 */
+	public List<NodeInfo> removeTooOld() {
+		while (true) {
+			Snapshot before= current.get();
+			Map<Id, NodeInfo> nodeMap= null;
+			List<NodeInfo> removed= new ArrayList<>();
+
+			for (NodeInfo nodeInfo : before.nodes) {
+				if (nodeInfo.isTooOld()) {
+					if (nodeMap == null)
+						nodeMap= new HashMap<>(before.nodeMap);
+					nodeMap.remove(nodeInfo.getId());
+					removed.add(nodeInfo);
+				}
+			}
+
+			if (nodeMap == null || current.compareAndSet(before, new Snapshot(before.version + 1, nodeMap)))
+				return removed;
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rice.p2p.commonapi.Id;
+import rice.p2p.commonapi.IdSet;
+import eu.ascens_ist.scp.node.core.TimerWheel;
+
+/**
+ * Keeps track of which of the locally stored PAST ids this node is closest to, i.e. for which apps it should be the initiator.
+ *
+ * Instead of looking at all stored content over and over, the ids are looked at again only when something may have changed: the leaf set (which
+ * only changes closeness, so only ids whose closeness actually flipped are handed on) or the content stored under an id. A flip is handed on by
+ * whichever check notices it first, even if that check was triggered by a content change. Changes arriving in quick
+ * succession are handled together after a short delay. Ids which turned out not to be apps are skipped until their content changes.
+ *
+ * Once in a while, all ids are handed on again, so roles which have gone away in the meantime are set up again.
+ *
+ */
+public class OwnershipTracker {
+
+	/**
+	 * What the tracker needs from the node, and whom it tells about ownership.
+	 */
+	public interface Callback {
+
+		/**
+		 * @return the ids of the PAST content stored on this node
+		 */
+		IdSet getStoredIds();
+
+		/**
+		 * @param id
+		 * @return whether this node is closest to the id
+		 */
+		boolean isClosest(Id id);
+
+		/**
+		 * The id needs to be looked at, as we have become (or stopped being) closest to it, or its content has changed.
+		 *
+		 * @param id
+		 * @param closest
+		 */
+		void evaluate(Id id, boolean closest);
+	}
+
+	private Callback callback;
+
+	private TimerWheel timer;
+
+	private long delay;
+
+	private long fullCheckInterval;
+
+	/**
+	 * Closeness per stored id as of the last check
+	 */
+	private Map<Id, Boolean> closest;
+
+	/**
+	 * Ids whose content is not an app
+	 */
+	private Set<Id> notApps;
+
+	private Set<Id> changedIds;
+
+	private boolean fullCheck;
+
+	/**
+	 * Written by the check on a timer worker, read by whoever calls {@link #checkAllIfDue()}
+	 */
+	private volatile long lastFullCheck;
+
+	private TimerWheel.Timeout pendingCheck;
+
+	/**
+	 * @param callback
+	 * @param timer
+	 * @param delayinms
+	 *            how long to wait for further changes before looking at the ids
+	 * @param fullCheckIntervalinms
+	 *            how often all ids are handed on regardless of changes
+	 */
+	public OwnershipTracker(Callback callback, TimerWheel timer, long delayinms, long fullCheckIntervalinms) {
+		this.callback= callback;
+		this.timer= timer;
+		this.delay= delayinms;
+		this.fullCheckInterval= fullCheckIntervalinms;
+		this.closest= new ConcurrentHashMap<>();
+		this.notApps= ConcurrentHashMap.newKeySet();
+		this.changedIds= new HashSet<>();
+		this.lastFullCheck= System.currentTimeMillis();
+	}
+
+	/**
+	 * A node has joined or left the leaf set.
+	 */
+	public synchronized void leafSetChanged() {
+		schedule();
+	}
+
+	/**
+	 * New content has been stored under the id.
+	 *
+	 * @param id
+	 */
+	public synchronized void contentChanged(Id id) {
+		notApps.remove(id);
+		changedIds.add(id);
+		schedule();
+	}
+
+	/**
+	 * Hands on all ids at the next check.
+	 */
+	public synchronized void checkAll() {
+		fullCheck= true;
+		schedule();
+	}
+
+	/**
+	 * Hands on all ids if the last time is long enough ago.
+	 */
+	public void checkAllIfDue() {
+		if (System.currentTimeMillis() - lastFullCheck >= fullCheckInterval)
+			checkAll();
+	}
+
+	/**
+	 * Notes that the content of the id is not an app, so there is no need to look at it again.
+	 *
+	 * @param id
+	 */
+	public void notAnApp(Id id) {
+		notApps.add(id);
+	}
+
+	private void schedule() {
+		if (pendingCheck == null)
+			pendingCheck= timer.schedule(this::check, delay);
+	}
+
+	private void check() {
+		Set<Id> changed;
+		boolean all;
+		synchronized (this) {
+			changed= changedIds;
+			changedIds= new HashSet<>();
+			all= fullCheck;
+			fullCheck= false;
+			pendingCheck= null;
+		}
+		if (all) {
+			notApps.clear();
+			lastFullCheck= System.currentTimeMillis();
+		}
+
+		Set<Id> stored= new HashSet<>();
+		for (Iterator<Id> i= callback.getStoredIds().getIterator(); i.hasNext();) {
+			Id id= i.next();
+			stored.add(id);
+			if (notApps.contains(id))
+				continue;
+
+			boolean isClosest= callback.isClosest(id);
+			Boolean wasClosest= closest.put(id, isClosest);
+			if (all || changed.contains(id) || wasClosest == null || wasClosest != isClosest)
+				callback.evaluate(id, isClosest);
+		}
+
+		// forget what is not stored here any more
+		closest.keySet().retainAll(stored);
+		notApps.retainAll(stored);
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.core.TimerWheel;
+import eu.ascens_ist.scp.node.core.strategy.gossip.roles.EventDrivenRole;
+
+/**
+ * The shared threads which drive all {@link EventDrivenRole}s of one node. Roles hand their message handlers, callbacks and timer tasks to the
+ * dispatcher; the roles themselves make sure their tasks are run one at a time. The number of threads is fixed, no matter how many roles there are.
+ * 
+ * Work which may block (installing or stopping an app, planning) must not run on these threads; it goes to a separate, equally bounded set of
+ * threads, see {@link #executeBlocking(Callable)}.
+ * 
+ */
+public class RoleDispatcher {
+
+	/**
+	 * Blocking calls waiting for a thread, at most
+	 */
+	private static final int BLOCKING_QUEUE_CAPACITY= 256;
+
+	private ExecutorService workers;
+
+	private ExecutorService blockingWorkers;
+
+	private TimerWheel timer;
+
+	public RoleDispatcher(final Id nodeId, int threads, int blockingThreads, TimerWheel timer) {
+		final AtomicInteger count= new AtomicInteger();
+		this.workers= Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t= Executors.defaultThreadFactory().newThread(r);
+				t.setName("Role Dispatcher " + count.incrementAndGet() + " " + nodeId);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		final AtomicInteger blockingCount= new AtomicInteger();
+		this.blockingWorkers= new ThreadPoolExecutor(blockingThreads, blockingThreads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+				BLOCKING_QUEUE_CAPACITY), new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t= Executors.defaultThreadFactory().newThread(r);
+				t.setName("Role Blocking Call " + blockingCount.incrementAndGet() + " " + nodeId);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.timer= timer;
+	}
+
+	public void execute(Runnable task) {
+		workers.execute(task);
+	}
+
+	/**
+	 * Runs the call on one of the threads for blocking work.
+	 * 
+	 * @param call
+	 * @return the result of the call; failed with a RejectedExecutionException if too many calls are waiting already
+	 */
+	public <T> CompletableFuture<T> executeBlocking(final Callable<T> call) {
+		final CompletableFuture<T> result= new CompletableFuture<>();
+		try {
+			blockingWorkers.execute(() -> {
+				try {
+					result.complete(call.call());
+				} catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Runs the task after the given delay. The task should only hand over work to {@link #execute(Runnable)}.
+	 * 
+	 * @param task
+	 * @param delayinms
+	 * @return
+	 */
+	public TimerWheel.Timeout schedule(Runnable task, long delayinms) {
+		return timer.schedule(task, delayinms);
+	}
+
+	public void shutdown() {
+		workers.shutdownNow();
+		blockingWorkers.shutdownNow();
+	}
+
+}
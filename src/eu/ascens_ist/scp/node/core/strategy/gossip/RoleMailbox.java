@@ -0,0 +1,298 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
+
+import rice.p2p.commonapi.Message;
+
+/**
+ * The mailbox of exactly one role. Role-to-role messages addressed to the owning role are queued here until the role picks them up via a (blocking) selective
+ * receive. A waiting role is woken up as soon as a matching message arrives.
+ * 
+ * Messages are indexed by their concrete class, so a selective receive only looks at the heads of the queues of the requested types instead of scanning
+ * all queued messages. A per-mailbox sequence number keeps the FIFO order across types.
+ * 
+ * The mailbox is bounded: messages which have not been picked up within the TTL are evicted, and if the capacity is reached the {@link OverflowPolicy}
+ * decides what happens with new messages. Control messages (priority {@link Message#MEDIUM_HIGH_PRIORITY} or higher) never expire, as a role may only
+ * handle them in a later state.
+ *
+ */
+public class RoleMailbox {
+
+	/**
+	 * What to do with a new message if the mailbox is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Evict the oldest queued message to make room.
+		 */
+		DROP_OLDEST,
+		/**
+		 * Silently discard the new message.
+		 */
+		DROP_NEWEST,
+		/**
+		 * Refuse the new message; the sender is told that delivery failed.
+		 */
+		REJECT
+	}
+
+	private RoleId owner;
+
+	private int capacity;
+
+	private long ttlinms;
+
+	private OverflowPolicy overflowPolicy;
+
+	private Map<Class<?>, LinkedList<Entry>> messagesByType;
+
+	private long nextSequence;
+
+	private int size;
+
+	private long dropped;
+
+	private long expired;
+
+	private long rejected;
+
+	private Runnable arrivalListener;
+
+	/**
+	 * @param owner
+	 * @param capacity
+	 *            maximum number of queued messages
+	 * @param ttlinms
+	 *            time after which unconsumed messages are evicted; 0 disables expiry
+	 * @param overflowPolicy
+	 */
+	public RoleMailbox(RoleId owner, int capacity, long ttlinms, OverflowPolicy overflowPolicy) {
+		this.owner= owner;
+		this.capacity= capacity;
+		this.ttlinms= ttlinms;
+		this.overflowPolicy= overflowPolicy;
+		this.messagesByType= new HashMap<>();
+	}
+
+	public RoleId getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Sets a listener which is notified (outside of the mailbox lock) whenever a message has been added. Used by roles which do not block in
+	 * {@link #take(int, Collection)} but get called back instead.
+	 * 
+	 * @param arrivalListener
+	 */
+	public synchronized void setArrivalListener(Runnable arrivalListener) {
+		this.arrivalListener= arrivalListener;
+	}
+
+	/**
+	 * Adds a message to the mailbox and wakes up all waiting receivers. If the mailbox is full, the overflow policy is applied.
+	 *
+	 * @param message
+	 * @return false if the message was rejected because the mailbox is full and the policy is {@link OverflowPolicy#REJECT}
+	 */
+	public boolean put(RR2RMessage message) {
+		Runnable listener;
+		synchronized (this) {
+			if (!enqueue(message))
+				return false;
+			listener= arrivalListener;
+		}
+
+		if (listener != null)
+			listener.run();
+		return true;
+	}
+
+	private boolean enqueue(RR2RMessage message) {
+		long now= System.currentTimeMillis();
+		expireOldMessages(now);
+
+		if (size >= capacity) {
+			switch (overflowPolicy) {
+				case DROP_OLDEST:
+					removeOldest(null);
+					dropped++;
+					break;
+				case DROP_NEWEST:
+					dropped++;
+					return true;
+				case REJECT:
+					rejected++;
+					return false;
+			}
+		}
+
+		LinkedList<Entry> queue= messagesByType.get(message.getClass());
+		if (queue == null) {
+			queue= new LinkedList<>();
+			messagesByType.put(message.getClass(), queue);
+		}
+		queue.add(new Entry(nextSequence++, now, message));
+		size++;
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Removes and returns the oldest message which is an instance of one of the given classes. Blocks until such a message arrives or the timeout has passed.
+	 *
+	 * @param timeoutinms
+	 * @param msgs
+	 * @return the message, or null in case of a timeout
+	 * @throws InterruptedException
+	 */
+	public synchronized RR2RMessage take(int timeoutinms, Collection<Class<? extends RR2RMessage>> msgs) throws InterruptedException {
+
+		long deadline= System.currentTimeMillis() + timeoutinms;
+		while (true) {
+			expireOldMessages(System.currentTimeMillis());
+
+			RR2RMessage found= removeOldest(msgs);
+			if (found != null)
+				return found;
+
+			long remaining= deadline - System.currentTimeMillis();
+			if (remaining <= 0)
+				return null;
+
+			wait(remaining);
+		}
+	}
+
+	/**
+	 * Empties the mailbox; the discarded messages are counted as dropped.
+	 */
+	public synchronized void close() {
+		dropped+= size;
+		messagesByType.clear();
+		size= 0;
+	}
+
+	/**
+	 * Removes and returns the oldest message which is an instance of one of the given classes, without blocking.
+	 * 
+	 * @param msgs
+	 * @return the message, or null if there is none
+	 */
+	public synchronized RR2RMessage poll(Collection<Class<? extends RR2RMessage>> msgs) {
+		expireOldMessages(System.currentTimeMillis());
+		return removeOldest(msgs);
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	public synchronized long getExpired() {
+		return expired;
+	}
+
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	private void expireOldMessages(long now) {
+		if (ttlinms <= 0 || size == 0)
+			return;
+
+		// queues are in arrival order, so only the heads need to be checked
+		for (Iterator<LinkedList<Entry>> i= messagesByType.values().iterator(); i.hasNext();) {
+			LinkedList<Entry> queue= i.next();
+			// all messages of a queue have the same type, and thus the same priority
+			if (!queue.isEmpty() && queue.getFirst().message.getPriority() <= Message.MEDIUM_HIGH_PRIORITY)
+				continue;
+			while (!queue.isEmpty() && now - queue.getFirst().arrival > ttlinms) {
+				queue.removeFirst();
+				size--;
+				expired++;
+			}
+			if (queue.isEmpty())
+				i.remove();
+		}
+	}
+
+	/**
+	 * Removes the oldest message which is an instance of one of the given classes.
+	 * 
+	 * @param msgs
+	 *            the requested classes, or null for any message
+	 * @return
+	 */
+	private RR2RMessage removeOldest(Collection<Class<? extends RR2RMessage>> msgs) {
+		if (size == 0)
+			return null;
+
+		LinkedList<Entry> oldest= null;
+		if (msgs == null) {
+			for (LinkedList<Entry> queue : messagesByType.values())
+				oldest= older(oldest, queue);
+		} else {
+			for (Class<? extends RR2RMessage> clazz : msgs) {
+				LinkedList<Entry> queue= messagesByType.get(clazz);
+				if (queue != null)
+					oldest= older(oldest, queue);
+				else if (Modifier.isAbstract(clazz.getModifiers()) || clazz.isInterface()) {
+					// asked for a supertype; look at all concrete types queued (not at all messages)
+					for (Map.Entry<Class<?>, LinkedList<Entry>> typeQueue : messagesByType.entrySet())
+						if (clazz.isAssignableFrom(typeQueue.getKey()))
+							oldest= older(oldest, typeQueue.getValue());
+				}
+			}
+		}
+
+		if (oldest == null)
+			return null;
+
+		Entry entry= oldest.removeFirst();
+		if (oldest.isEmpty())
+			messagesByType.remove(entry.message.getClass());
+		size--;
+		return entry.message;
+	}
+
+	private static LinkedList<Entry> older(LinkedList<Entry> current, LinkedList<Entry> candidate) {
+		if (candidate.isEmpty())
+			return current;
+		if (current == null || candidate.getFirst().sequence < current.getFirst().sequence)
+			return candidate;
+		return current;
+	}
+
+	private static class Entry {
+
+		private final long sequence;
+
+		private final long arrival;
+
+		private final RR2RMessage message;
+
+		Entry(long sequence, long arrival, RR2RMessage message) {
+			this.sequence= sequence;
+			this.arrival= arrival;
+			this.message= message;
+		}
+	}
+
+}
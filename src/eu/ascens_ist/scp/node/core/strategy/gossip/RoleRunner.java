@@ -0,0 +1,151 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleCreationException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.roles.EventDrivenRole;
+import eu.ascens_ist.scp.node.core.strategy.gossip.roles.HelenaRole;
+import eu.ascens_ist.scp.node.logging.LogFactory;
+import eu.ascens_ist.scp.node.logging.Logger;
+
+/**
+ * Runs the blocking (i.e. not {@link EventDrivenRole event-driven}) roles of one node. Threads are named after the role type and the ensemble.
+ *
+ */
+public class RoleRunner {
+
+	public enum Mode {
+		/**
+		 * A new platform thread for each role.
+		 */
+		THREAD,
+		/**
+		 * A new virtual thread for each role; requires JDK 21 or later, otherwise falls back to {@link #THREAD}.
+		 */
+		VIRTUAL,
+		/**
+		 * A bounded pool of platform threads. A role holds its thread until it ends, so starting a role fails if all threads are busy; it is not queued, as
+		 * it might never get a thread.
+		 */
+		POOL
+	}
+
+	private Logger log;
+
+	private Mode mode;
+
+	private ThreadPoolExecutor pool;
+
+	private Method ofVirtual;
+
+	private Method builderName;
+
+	private Method builderStart;
+
+	/**
+	 * @param nodeId
+	 * @param mode
+	 * @param poolSize
+	 *            the number of threads in {@link Mode#POOL} mode
+	 */
+	public RoleRunner(final Id nodeId, Mode mode, int poolSize) {
+		this.log= LogFactory.get(nodeId + " HELENA.ROLERUNNER");
+		this.mode= mode;
+
+		if (mode == Mode.VIRTUAL) {
+			try {
+				// via reflection, since we still compile for Java 8
+				Class<?> builder= Class.forName("java.lang.Thread$Builder");
+				this.ofVirtual= Thread.class.getMethod("ofVirtual");
+				this.builderName= builder.getMethod("name", String.class);
+				this.builderStart= builder.getMethod("start", Runnable.class);
+			} catch (ReflectiveOperationException e) {
+				log.error("Virtual threads are not available on this JVM, using a thread per role instead.");
+				this.mode= Mode.THREAD;
+			}
+		}
+
+		if (mode == Mode.POOL) {
+			final AtomicInteger count= new AtomicInteger();
+			this.pool= new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t= Executors.defaultThreadFactory().newThread(r);
+					t.setName("Role Pool " + count.incrementAndGet() + " " + nodeId);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Starts running the role.
+	 *
+	 * @param role
+	 * @throws RRoleCreationException
+	 *             if the role could not be started, e.g. as there is no free thread in {@link Mode#POOL} mode
+	 */
+	public void run(final HelenaRole role) throws RRoleCreationException {
+		final String name= role.getClass().getSimpleName() + " " + role.getRoleId().getEnsembleId();
+
+		switch (mode) {
+			case THREAD:
+				new Thread(role, name).start();
+				break;
+			case VIRTUAL:
+				try {
+					builderStart.invoke(builderName.invoke(ofVirtual.invoke(null), name), role);
+				} catch (ReflectiveOperationException e) {
+					throw new RRoleCreationException("Could not start virtual thread for " + name, e);
+				}
+				break;
+			case POOL:
+				try {
+					pool.execute(new Runnable() {
+
+						@Override
+						public void run() {
+							Thread current= Thread.currentThread();
+							String poolName= current.getName();
+							current.setName(name);
+							try {
+								role.run();
+							} finally {
+								current.setName(poolName);
+							}
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					throw new RRoleCreationException("No free thread in the role pool, could not start " + name, e);
+				}
+				break;
+		}
+	}
+
+	public void shutdown() {
+		if (pool != null)
+			pool.shutdownNow();
+	}
+
+}
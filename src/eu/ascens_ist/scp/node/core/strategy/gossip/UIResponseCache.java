@@ -0,0 +1,151 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rice.p2p.commonapi.Id;
+
+/**
+ * Coalesces identical GET requests to apps and keeps their responses for as long as the app allows (see
+ * {@link eu.ascens_ist.scp.node.core.ICacheableAppService}). While a request is on its way, identical requests share its response instead of being
+ * sent as well; once it is answered, the response is reused until its TTL has passed.
+ *
+ */
+public class UIResponseCache {
+
+	private static final class CachedResponse {
+
+		private final String response;
+
+		private final long expires;
+
+		CachedResponse(String response, long expires) {
+			this.response= response;
+			this.expires= expires;
+		}
+	}
+
+	private int maxEntries;
+
+	/**
+	 * Requests on their way, by key
+	 */
+	private Map<String, CompletableFuture<String>> inFlight;
+
+	/**
+	 * Keys of the requests on their way, by routing id
+	 */
+	private Map<Id, String> keys;
+
+	/**
+	 * Least recently used first
+	 */
+	private LinkedHashMap<String, CachedResponse> responses;
+
+	public UIResponseCache(int maxEntries) {
+		this.maxEntries= maxEntries;
+		this.inFlight= new ConcurrentHashMap<>();
+		this.keys= new ConcurrentHashMap<>();
+		this.responses= new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * @param appName
+	 * @param target
+	 * @param properties
+	 * @return the key under which identical requests are coalesced and cached
+	 */
+	public static String keyFor(String appName, String target, Map<String, String[]> properties) {
+		StringBuilder key= new StringBuilder(appName).append('/').append(target).append('?');
+		for (Map.Entry<String, String[]> property : new TreeMap<>(properties).entrySet())
+			key.append(property.getKey()).append('=').append(Arrays.toString(property.getValue())).append('&');
+		return key.toString();
+	}
+
+	/**
+	 * @param key
+	 * @return the cached response, or null if there is none (anymore)
+	 */
+	public synchronized String get(String key) {
+		CachedResponse cached= responses.get(key);
+		if (cached == null)
+			return null;
+		if (cached.expires <= System.currentTimeMillis()) {
+			responses.remove(key);
+			return null;
+		}
+		return cached.response;
+	}
+
+	/**
+	 * Registers the response of the request with the given routing id as in flight, unless an identical request already is.
+	 *
+	 * @param key
+	 * @param routingId
+	 * @param response
+	 * @return the response of the identical request in flight, or null if the given one has been registered and must be sent
+	 */
+	public CompletableFuture<String> coalesce(final String key, final Id routingId, final CompletableFuture<String> response) {
+		CompletableFuture<String> existing= inFlight.putIfAbsent(key, response);
+		if (existing != null)
+			return existing;
+
+		keys.put(routingId, key);
+		response.whenComplete((result, t) -> {
+			keys.remove(routingId);
+			inFlight.remove(key, response);
+		});
+		return null;
+	}
+
+	/**
+	 * Caches the response of a coalesced request, if the app allows. Must be called before the response of the request is completed.
+	 *
+	 * @param routingId
+	 * @param response
+	 * @param ttlinms
+	 */
+	public void responded(Id routingId, String response, long ttlinms) {
+		String key= keys.get(routingId);
+		if (key == null || response == null || ttlinms <= 0)
+			return;
+
+		synchronized (this) {
+			responses.put(key, new CachedResponse(response, System.currentTimeMillis() + ttlinms));
+			if (responses.size() > maxEntries)
+				removeExpiredOrEldest();
+		}
+	}
+
+	/**
+	 * Drops all cached responses of the app.
+	 *
+	 * @param appName
+	 */
+	public synchronized void invalidate(String appName) {
+		responses.keySet().removeIf(key -> key.startsWith(appName + "/"));
+	}
+
+	private void removeExpiredOrEldest() {
+		long now= System.currentTimeMillis();
+		responses.values().removeIf(cached -> cached.expires <= now);
+		Iterator<String> eldest= responses.keySet().iterator();
+		while (responses.size() > maxEntries && eldest.hasNext()) {
+			eldest.next();
+			eldest.remove();
+		}
+	}
+
+}
@@ -0,0 +1,22 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip.exc;
+
+/**
+ * The mailbox of the target role is full and rejects new messages. Senders treat this like a timeout: the message was not delivered.
+ * 
+ */
+public class RMailboxFullException extends RTimeoutException {
+
+	private static final long serialVersionUID= 1L;
+
+	public RMailboxFullException(String problem) {
+		super(problem);
+	}
+
+}
@@ -15,5 +15,9 @@ public class RTimeoutException extends RException {
 		super("Timeout occurred!");
 	}
 
+	protected RTimeoutException(String message) {
+		super(message);
+	}
+
 
 }
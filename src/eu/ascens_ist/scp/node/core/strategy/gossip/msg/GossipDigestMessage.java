@@ -0,0 +1,49 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip.msg;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.messages.AbstractSCPDirectMessage;
+
+/**
+ * First step of a gossip exchange: which node infos the sender has, by content version, and their heartbeats, but not the node infos themselves. The
+ * peer takes over the heartbeats and answers with a {@link GossipDigestReplyMessage} if the versions differ.
+ */
+public class GossipDigestMessage extends AbstractSCPDirectMessage {
+
+	private static final long serialVersionUID= 1L;
+
+	private HashMap<Id, Long> digest;
+
+	private HashMap<Id, Long> heartbeats;
+
+	public GossipDigestMessage(Id from, Id to, Map<Id, Long> digest, Map<Id, Long> heartbeats) {
+		super(from, to);
+		this.digest= new HashMap<>(digest);
+		this.heartbeats= new HashMap<>(heartbeats);
+		setMsgType(getClass().getSimpleName());
+	}
+
+	/**
+	 * @return content version by node id
+	 */
+	public Map<Id, Long> getDigest() {
+		return digest;
+	}
+
+	/**
+	 * @return heartbeat by node id
+	 */
+	public Map<Id, Long> getHeartbeats() {
+		return heartbeats;
+	}
+
+}
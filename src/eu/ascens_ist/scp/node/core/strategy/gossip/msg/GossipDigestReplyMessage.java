@@ -0,0 +1,44 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip.msg;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.info.NodeInfo;
+import eu.ascens_ist.scp.node.messages.AbstractSCPDirectMessage;
+
+/**
+ * Second step of a gossip exchange: the node infos whose content version is newer here than in the digest, and the ids of those which are newer at
+ * the sender of the digest. The latter are pushed back with a {@link GossipInfoMessage}. Not sent at all if the versions agree.
+ */
+public class GossipDigestReplyMessage extends AbstractSCPDirectMessage {
+
+	private static final long serialVersionUID= 1L;
+
+	private Set<NodeInfo> newer;
+
+	private HashSet<Id> wanted;
+
+	public GossipDigestReplyMessage(Id from, Id to, Set<NodeInfo> newer, Set<Id> wanted) {
+		super(from, to);
+		this.newer= newer;
+		this.wanted= new HashSet<>(wanted);
+		setMsgType(getClass().getSimpleName());
+	}
+
+	public Set<NodeInfo> getNewer() {
+		return newer;
+	}
+
+	public Set<Id> getWanted() {
+		return wanted;
+	}
+
+}
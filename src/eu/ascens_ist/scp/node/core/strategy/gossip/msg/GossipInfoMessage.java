@@ -13,6 +13,10 @@ import rice.p2p.commonapi.Id;
 import eu.ascens_ist.scp.node.info.NodeInfo;
 import eu.ascens_ist.scp.node.messages.AbstractSCPDirectMessage;
 
+/**
+ * Node infos pushed to a peer: those it asked for in a digest exchange (see {@link GossipDigestMessage}), or the sender's own one when it is needed
+ * right away. Entries are merged one by one, newer content version wins.
+ */
 public class GossipInfoMessage extends AbstractSCPDirectMessage {
 
 	private static final long serialVersionUID= 1L;
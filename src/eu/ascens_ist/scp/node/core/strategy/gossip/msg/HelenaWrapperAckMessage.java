@@ -0,0 +1,45 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip.msg;
+
+import java.util.List;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.messages.AbstractSCPDirectMessage;
+
+/**
+ * A batch of positive acks for one-way wrapper messages, sent if there was no other message to piggyback them on.
+ * 
+ */
+public class HelenaWrapperAckMessage extends AbstractSCPDirectMessage {
+
+	private static final long serialVersionUID= 1L;
+
+	private List<Id> acknowledgedMessageIds;
+
+	public HelenaWrapperAckMessage(Id from, Id to, List<Id> acknowledgedMessageIds) {
+		super(from, to);
+		this.acknowledgedMessageIds= acknowledgedMessageIds;
+		setMsgType(getClass().getSimpleName());
+	}
+
+	@Override
+	public int getPriority() {
+		return HIGH_PRIORITY;
+	}
+
+	public List<Id> getAcknowledgedMessageIds() {
+		return acknowledgedMessageIds;
+	}
+
+	@Override
+	public String toString() {
+		return "WrapperAckMessage with " + acknowledgedMessageIds.size() + " acks";
+	}
+
+}
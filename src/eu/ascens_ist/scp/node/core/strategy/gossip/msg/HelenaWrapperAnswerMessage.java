@@ -27,6 +27,14 @@ public abstract class HelenaWrapperAnswerMessage extends AbstractSCPDirectMessag
 		return serialVersionUID;
 	}
 
+	/**
+	 * Answers are small and release waiting callers, so they are always sent with high priority.
+	 */
+	@Override
+	public int getPriority() {
+		return HIGH_PRIORITY;
+	}
+
 	public Id getMessageId() {
 		return messageId;
 	}
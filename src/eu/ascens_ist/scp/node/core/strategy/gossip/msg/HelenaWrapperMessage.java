@@ -7,6 +7,9 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.msg;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import rice.p2p.commonapi.Id;
 import eu.ascens_ist.scp.node.messages.AbstractSCPDirectMessage;
 
@@ -18,13 +21,38 @@ public class HelenaWrapperMessage extends AbstractSCPDirectMessage {
 
 	private Id messageId;
 
+	/**
+	 * One-way messages are not answered with a dedicated answer message if delivery succeeds; positive acks are batched or piggybacked instead. Failures
+	 * are still answered immediately.
+	 */
+	private boolean oneWay;
+
+	/**
+	 * Positive acks for one-way messages previously received from the target node, piggybacked on this message.
+	 */
+	private List<Id> piggybackedAcks;
+
 	public HelenaWrapperMessage(Id from, Id to, RMessage wrapped, Id messageId) {
+		this(from, to, wrapped, messageId, false);
+	}
+
+	public HelenaWrapperMessage(Id from, Id to, RMessage wrapped, Id messageId, boolean oneWay) {
 		super(from, to);
 		this.wrapped= wrapped;
 		this.messageId= messageId;
+		this.oneWay= oneWay;
+		this.piggybackedAcks= new ArrayList<>();
 		setMsgType(wrapped.getClass().getSimpleName());
 	}
 
+	/**
+	 * Wrapper messages travel with the priority of the wrapped message.
+	 */
+	@Override
+	public int getPriority() {
+		return wrapped.getPriority();
+	}
+
 	public RMessage getWrapped() {
 		return wrapped;
 	}
@@ -33,4 +61,16 @@ public class HelenaWrapperMessage extends AbstractSCPDirectMessage {
 		return messageId;
 	}
 
+	public boolean isOneWay() {
+		return oneWay;
+	}
+
+	public List<Id> getPiggybackedAcks() {
+		return piggybackedAcks;
+	}
+
+	public void setPiggybackedAcks(List<Id> piggybackedAcks) {
+		this.piggybackedAcks= piggybackedAcks;
+	}
+
 }
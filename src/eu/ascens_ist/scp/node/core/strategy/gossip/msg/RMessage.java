@@ -9,6 +9,8 @@ package eu.ascens_ist.scp.node.core.strategy.gossip.msg;
 
 import java.io.Serializable;
 
+import rice.p2p.commonapi.Message;
+
 /**
  * An RMessage (for communication within Gossip/Helena in general)
  * 
@@ -19,5 +21,15 @@ public abstract class RMessage implements Serializable {
 
 	private static final long serialVersionUID= 1L;
 
+	/**
+	 * The Pastry priority of the wrapper message carrying this message. Liveness and shutdown messages should override this with a higher priority,
+	 * bulk transfers with a lower one.
+	 * 
+	 * @return
+	 */
+	public int getPriority() {
+		return Message.MEDIUM_PRIORITY;
+	}
+
 
 }
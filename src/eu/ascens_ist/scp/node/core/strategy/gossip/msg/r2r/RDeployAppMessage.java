@@ -7,6 +7,7 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r;
 
+import rice.p2p.commonapi.Message;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
 import eu.ascens_ist.scp.node.info.AppInfo;
@@ -33,5 +34,9 @@ public class RDeployAppMessage extends RR2RMessage {
 		return appInfo;
 	}
 
+	@Override
+	public int getPriority() {
+		return Message.LOW_PRIORITY;
+	}
 
 }
@@ -7,6 +7,7 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r;
 
+import rice.p2p.commonapi.Message;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
 
@@ -18,4 +19,9 @@ public class RInternalInitiatorShutdownMessage extends RR2RMessage {
 		super(fromRole, toRole);
 	}
 
+	@Override
+	public int getPriority() {
+		return Message.HIGH_PRIORITY;
+	}
+
 }
@@ -7,6 +7,7 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r;
 
+import rice.p2p.commonapi.Message;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
 import eu.ascens_ist.scp.node.info.NodeInfo;
@@ -26,4 +27,9 @@ public class RPongExecutorMessage extends RR2RMessage {
 		return nodeInfo;
 	}
 
+	@Override
+	public int getPriority() {
+		return Message.HIGH_PRIORITY;
+	}
+
 }
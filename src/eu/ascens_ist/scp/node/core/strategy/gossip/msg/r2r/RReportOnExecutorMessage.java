@@ -7,6 +7,9 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
 
@@ -14,15 +17,18 @@ public class RReportOnExecutorMessage extends RR2RMessage {
 
 	private static final long serialVersionUID = 1L;
 
-	private RoleId executorRole;
+	private ArrayList<RoleId> executorRoles;
 
-	public RReportOnExecutorMessage(RoleId fromRole, RoleId toRole, RoleId executorRole) {
+	public RReportOnExecutorMessage(RoleId fromRole, RoleId toRole, List<RoleId> executorRoles) {
 		super(fromRole, toRole);
-		this.executorRole= executorRole;
+		this.executorRoles= new ArrayList<>(executorRoles);
 	}
 
-	public RoleId getExecutorRole() {
-		return executorRole;
+	/**
+	 * @return all executors (replicas) of the app; empty if there is none at the moment
+	 */
+	public List<RoleId> getExecutorRoles() {
+		return executorRoles;
 	}
 
 }
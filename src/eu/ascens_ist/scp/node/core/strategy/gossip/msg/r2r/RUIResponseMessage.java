@@ -7,6 +7,7 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r;
 
+import rice.p2p.commonapi.Id;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
 
@@ -15,15 +16,35 @@ public class RUIResponseMessage extends RR2RMessage {
 
 	private static final long serialVersionUID= 1L;
 
+	private Id routingId;
+
 	private String result;
 
-	public RUIResponseMessage(RoleId fromRole, RoleId toRole, String result) {
+	private long cacheTTL;
+
+	public RUIResponseMessage(RoleId fromRole, RoleId toRole, Id routingId, String result, long cacheTTL) {
 		super(fromRole, toRole);
+		this.routingId= routingId;
 		this.result= result;
+		this.cacheTTL= cacheTTL;
+	}
+
+	/**
+	 * @return the routing id of the request this is the response to
+	 */
+	public Id getRoutingId() {
+		return routingId;
 	}
 
 	public String getResult() {
 		return result;
 	}
 
+	/**
+	 * @return milliseconds the result may be reused for identical GET requests; 0 or less if not at all
+	 */
+	public long getCacheTTL() {
+		return cacheTTL;
+	}
+
 }
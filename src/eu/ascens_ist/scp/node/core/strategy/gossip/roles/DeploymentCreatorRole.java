@@ -49,12 +49,7 @@ public class DeploymentCreatorRole extends HelenaRole {
 
 			// create deployment with requested requirements on Zimory platform
 			// if app requirements allow virtualization
-			try {
-				Thread.sleep(10000);
-			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
+			sleep(10000);
 			ZimoryDeployment deployment = getStrategy().createZimoryDeploymentForApp(appInfo, deploymentCreatorLog, GossipHelenaBasedStrategy.ROLE_DEPLOYMENT_CREATOR);
 			if (deployment != null) {
 				deploymentCreatorLog.error("Deployment was successfully created");
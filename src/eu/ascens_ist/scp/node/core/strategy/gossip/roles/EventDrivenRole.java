@@ -0,0 +1,271 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.core.strategy.gossip.roles;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.core.TimerWheel;
+import eu.ascens_ist.scp.node.core.strategy.gossip.GossipHelenaBasedStrategy;
+import eu.ascens_ist.scp.node.core.strategy.gossip.RoleDispatcher;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
+
+/**
+ * A role which does not own a thread. Instead of blocking in {@link #waitForIncomingMessages(int, Collection)}, the role is an explicit state machine:
+ * for each state, it registers handlers for the messages it accepts in that state. Handlers, callbacks of asynchronous calls and timers are run on the
+ * shared {@link RoleDispatcher} of the node, one at a time per role, so the role needs no locking.
+ *
+ * Messages which are not accepted in the current state stay in the mailbox until a state accepting them is entered (as with the selective receive of
+ * the blocking roles). Handlers must not block; use the asynchronous variants of the messaging methods together with
+ * {@link #whenDone(CompletableFuture, Callback)}, and {@link #callBlocking(Callable)} for other work which may block or take long.
+ *
+ * @param <S>
+ *            the states of the role
+ */
+public abstract class EventDrivenRole<S extends Enum<S>> extends HelenaRole {
+
+	/**
+	 * Handles a message accepted in a state.
+	 */
+	public interface MessageHandler<M extends RR2RMessage> {
+		void handle(M message) throws RException;
+	}
+
+	/**
+	 * Continues after an asynchronous call. Exactly one of result and error is set (result may also be null for Void calls).
+	 */
+	public interface Callback<T> {
+		void done(T result, RException error) throws RException;
+	}
+
+	/**
+	 * A task run in the context of the role.
+	 */
+	public interface Task {
+		void run() throws RException;
+	}
+
+	private Map<S, Map<Class<? extends RR2RMessage>, MessageHandler<? extends RR2RMessage>>> handlers;
+
+	private S state;
+
+	private ConcurrentLinkedQueue<Task> tasks;
+
+	private AtomicBoolean scheduled;
+
+	private volatile boolean finished;
+
+	public EventDrivenRole(Id ensembleId, Id nodeId, GossipHelenaBasedStrategy strategy, Class<S> stateType, S initialState) {
+		super(ensembleId, nodeId, strategy);
+		this.handlers = new EnumMap<>(stateType);
+		this.state = initialState;
+		this.tasks = new ConcurrentLinkedQueue<>();
+		this.scheduled = new AtomicBoolean();
+	}
+
+	/**
+	 * Registers the handler for messages of the given type in the given state.
+	 *
+	 * @param inState
+	 * @param messageType
+	 * @param handler
+	 */
+	protected <M extends RR2RMessage> void on(S inState, Class<M> messageType, MessageHandler<M> handler) {
+		Map<Class<? extends RR2RMessage>, MessageHandler<? extends RR2RMessage>> stateHandlers = handlers.get(inState);
+		if (stateHandlers == null) {
+			stateHandlers = new LinkedHashMap<>();
+			handlers.put(inState, stateHandlers);
+		}
+		stateHandlers.put(messageType, handler);
+	}
+
+	/**
+	 * Starts the role on the dispatcher. Called by the ensemble instead of starting a thread.
+	 */
+	public void start() {
+		getStrategy().setMailboxListener(getRoleId(), new Runnable() {
+
+			@Override
+			public void run() {
+				submit(EventDrivenRole.this::dispatchMessages);
+			}
+		});
+		submit(() -> {
+			onStart();
+			dispatchMessages();
+		});
+	}
+
+	/**
+	 * Event-driven roles are not run on a thread of their own; this simply starts the role.
+	 */
+	@Override
+	public final void run() {
+		start();
+	}
+
+	protected S getState() {
+		return state;
+	}
+
+	/**
+	 * Switches to the given state. Queued messages accepted in the new state are handled right afterwards.
+	 *
+	 * @param newState
+	 */
+	protected void setState(S newState) {
+		this.state = newState;
+		submit(this::dispatchMessages);
+	}
+
+	protected boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Ends the role: no more handlers, callbacks or timers are run, and {@link #onFinish()} is called.
+	 */
+	protected void finish() {
+		if (finished)
+			return;
+		finished = true;
+		getStrategy().setMailboxListener(getRoleId(), null);
+		onFinish();
+	}
+
+	/**
+	 * Called in the context of the role when it is started.
+	 */
+	protected abstract void onStart() throws RException;
+
+	/**
+	 * Called in the context of the role when it has finished, either regularly or because of an exception.
+	 */
+	protected abstract void onFinish();
+
+	/**
+	 * Called if a handler, callback or timer task has thrown an exception. Finishes the role by default.
+	 *
+	 * @param e
+	 */
+	protected void onFailure(RException e) {
+		finish();
+	}
+
+	/**
+	 * Runs the task in the context of the role (i.e. not concurrently to its handlers).
+	 *
+	 * @param task
+	 */
+	protected void submit(Task task) {
+		tasks.add(task);
+		schedule();
+	}
+
+	/**
+	 * Runs the task in the context of the role after the given delay, unless the role has finished by then.
+	 *
+	 * @param delayinms
+	 * @param task
+	 * @return the timer, which may be cancelled
+	 */
+	protected TimerWheel.Timeout after(int delayinms, final Task task) {
+		return getStrategy().getRoleDispatcher().schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				submit(task);
+			}
+		}, delayinms);
+	}
+
+	/**
+	 * Calls back in the context of the role once the future is done. An exception the future failed with is handed over as {@link RException}.
+	 *
+	 * @param future
+	 * @param callback
+	 */
+	protected <T> void whenDone(CompletableFuture<T> future, final Callback<T> callback) {
+		future.whenComplete((result, t) -> submit(() -> callback.done(result, toRException(t))));
+	}
+
+	/**
+	 * Runs work which may block or take long off the dispatcher; continue with {@link #whenDone(CompletableFuture, Callback)}. The call runs
+	 * concurrently to the role, so it should not touch the state of the role.
+	 *
+	 * @param call
+	 * @return the result of the call
+	 */
+	protected <T> CompletableFuture<T> callBlocking(Callable<T> call) {
+		return getStrategy().getRoleDispatcher().executeBlocking(call);
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true))
+			getStrategy().getRoleDispatcher().execute(this::runTasks);
+	}
+
+	private void runTasks() {
+		// Do not hog a dispatcher thread; other roles want to run, too.
+		int budget = 32;
+		Task task;
+		while (budget-- > 0 && (task = tasks.poll()) != null) {
+			if (finished)
+				continue;
+			try {
+				task.run();
+			} catch (RException e) {
+				onFailure(e);
+			} catch (RuntimeException e) {
+				onFailure(new RException(e));
+			}
+		}
+
+		scheduled.set(false);
+		if (!tasks.isEmpty())
+			schedule();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void dispatchMessages() throws RException {
+		while (!finished) {
+			Map<Class<? extends RR2RMessage>, MessageHandler<? extends RR2RMessage>> stateHandlers = handlers.get(state);
+			if (stateHandlers == null || stateHandlers.isEmpty())
+				return;
+
+			Collection<Class<? extends RR2RMessage>> accepted = new ArrayList<>(stateHandlers.keySet());
+			RR2RMessage message = getStrategy().pollIncomingMessage(getRoleId(), accepted);
+			if (message == null)
+				return;
+
+			MessageHandler<RR2RMessage> handler = (MessageHandler<RR2RMessage>) stateHandlers.get(message.getClass());
+			handler.handle(message);
+		}
+	}
+
+	private static RException toRException(Throwable t) {
+		if (t == null)
+			return null;
+		if (t instanceof CompletionException && t.getCause() != null)
+			t = t.getCause();
+		if (t instanceof RException)
+			return (RException) t;
+		return new RException(t);
+	}
+
+}
@@ -7,20 +7,26 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.roles;
 
-import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.osgi.framework.BundleException;
 
 import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.Configuration;
+import eu.ascens_ist.scp.node.core.TimerWheel;
 import eu.ascens_ist.scp.node.core.exceptions.AppRequestException;
 import eu.ascens_ist.scp.node.core.exceptions.BundleStartException;
 import eu.ascens_ist.scp.node.core.strategy.AbstractStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.GossipHelenaBasedStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.REnsembleNotFoundException;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleNotFoundException;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RTimeoutException;
-import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RAcknowledgeExecutionMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RAppCodeMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RExecuteAppMessage;
@@ -36,49 +42,68 @@ import eu.ascens_ist.scp.node.info.AppInfo;
 import eu.ascens_ist.scp.node.logging.LogFactory;
 import eu.ascens_ist.scp.node.logging.Logger;
 
-public class ExecutorRole extends HelenaRole {
+/**
+ * Runs the app on this node. Event-driven: the executor waits for the order to execute, fetches the code from the main storage role, starts the app and
+ * then serves UI requests and pings until it is told to stop.
+ * 
+ * UI requests are handled by a bounded pool of workers for this app, so slow requests neither block each other nor delay pongs and stop orders, which
+ * are handled by the role itself.
+ * 
+ */
+public class ExecutorRole extends EventDrivenRole<ExecutorRole.State> {
+
+	public enum State {
+		WAITING_FOR_EXECUTION, FETCHING_CODE, STARTING, RUNNING, STOPPING
+	}
+
 	private Logger log;
 
 	private RoleId initiatorRole;
 
 	private AppInfo appInfo;
 
-	private boolean fullBooted= false;
+	private RoleId potentialExecutorRole;
+
+	private Id targetNode;
+
+	private TimerWheel.Timeout codeTimeout;
+
+	private ThreadPoolExecutor uiWorkers;
+
+	private volatile boolean fullBooted= false;
 
 	private boolean roleIsDown= false;
 	
 	public ExecutorRole(Id ensembleId, Id nodeId, GossipHelenaBasedStrategy strategy) {
-		super(ensembleId, nodeId, strategy);
+		super(ensembleId, nodeId, strategy, State.class, State.WAITING_FOR_EXECUTION);
 		log = LogFactory.get(nodeId + " " + ensembleId + " HELENA.EXECUTOR");
+
+		on(State.WAITING_FOR_EXECUTION, RExecuteAppMessage.class, this::handleExecuteApp);
+		on(State.FETCHING_CODE, RAppCodeMessage.class, this::handleAppCode);
+		on(State.RUNNING, RUIRequestMessage.class, this::handleUIRequest);
+		on(State.RUNNING, RPingExecutorMessage.class, this::handlePing);
+		on(State.RUNNING, RStopAppHandlingMessage.class, this::handleStop);
 	}
 
 	@Override
-	public void run() {
-
+	protected void onStart() {
 		log.info("Booting executor role %s", getRoleId());
+		log.info("Waiting for incoming message RExecuteAppMessage...");
+	}
 
-		try {
-			log.info("Waiting for incoming message RExecuteAppMessage...");
-			RExecuteAppMessage executeAppMessage;
-			try {
-				executeAppMessage = waitForIncomingMessage(INFINITY, RExecuteAppMessage.class);
-			} catch (RTimeoutException e) {
-				log.error("Got at timeout while waiting for RAskForExecutionMessage. Shutting down executor role");
-				return;
-			}
-			appInfo = executeAppMessage.getAppInfo();
-			RoleId potentialExecutorRole = executeAppMessage.getFromRole();
-
-			log.info("Got RExecuteAppMessage.");
-			getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR, "");
-
-			Id targetNode = createIdfromString(appInfo.getName());
-			log.info("Retrieving main storage role from the target node %s.", targetNode);
-			RoleId mainStorage;
-			try {
-				mainStorage = getRoleInstance(targetNode, MainStorageRole.class);
-			} catch (RTimeoutException | REnsembleNotFoundException | RRoleNotFoundException e1) {
+	private void handleExecuteApp(RExecuteAppMessage executeAppMessage) {
+		appInfo = executeAppMessage.getAppInfo();
+		potentialExecutorRole = executeAppMessage.getFromRole();
+
+		log.info("Got RExecuteAppMessage.");
+		getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR, "");
+
+		targetNode = createIdfromString(appInfo.getName());
+		log.info("Retrieving main storage role from the target node %s.", targetNode);
+		whenDone(getRoleInstanceAsync(targetNode, MainStorageRole.class), (mainStorage, error) -> {
+			if (error != null) {
 				log.error("Could not get main storage role. Shutting down executor role.");
+				finish();
 				return;
 			}
 
@@ -86,138 +111,216 @@ public class ExecutorRole extends HelenaRole {
 			getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR, "Grabbing bytecode");
 
 			log.info("Sending RRequestCodeMessage to main storage role %s", mainStorage);
-			try {
-				sendMessage(new RRequestCodeMessage(getRoleId(), mainStorage, appInfo));
-			} catch (RTimeoutException | RRoleNotFoundException | REnsembleNotFoundException e1) {
-				log.error("Could not send message RRequestCodeMessage to main storage role %s...", mainStorage);
-				return;
-			}
+			whenDone(sendMessageAsync(new RRequestCodeMessage(getRoleId(), mainStorage, appInfo)), (v, sendError) -> {
+				if (sendError != null) {
+					log.error("Could not send message RRequestCodeMessage to main storage role %s...", mainStorage);
+					finish();
+					return;
+				}
 
-			log.info("Waiting for incoming message RAppCodeMessage...");
-			RAppCodeMessage appCodeMessage;
-			try {
-				appCodeMessage = waitForIncomingMessage(5000, RAppCodeMessage.class);
-			} catch (RTimeoutException e1) {
-				log.error("Got at timeout while waiting for RAppCodeMessage. Shutting down executor role");
-				return;
-			}
-			byte[] appCode = appCodeMessage.getAppCode();
+				log.info("Waiting for incoming message RAppCodeMessage...");
+				setState(State.FETCHING_CODE);
+				codeTimeout = after(5000, () -> {
+					log.error("Got at timeout while waiting for RAppCodeMessage. Shutting down executor role");
+					finish();
+				});
+			});
+		});
+	}
 
-			log.info("Got RAppCodeMessage. Trying to execute the application");
-			getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR, "Trying to execute");
+	private void handleAppCode(RAppCodeMessage appCodeMessage) {
+		codeTimeout.cancel();
+		final byte[] appCode = appCodeMessage.getAppCode();
 
-			try {
-				initiatorRole = getRoleInstance(targetNode, InitiatorRole.class);
-			} catch (RTimeoutException | RRoleNotFoundException | REnsembleNotFoundException e1) {
+		log.info("Got RAppCodeMessage. Trying to execute the application");
+		getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR, "Trying to execute");
+
+		whenDone(getRoleInstanceAsync(targetNode, InitiatorRole.class), (initiator, error) -> {
+			if (error != null) {
 				log.error("Could not get initiator role");
+				finish();
 				return;
 			}
+			initiatorRole = initiator;
 
-			try {
+			// installing and starting the bundle may take long; not on the dispatcher
+			setState(State.STARTING);
+			whenDone(callBlocking(() -> {
 				getStrategy().executeApp(appInfo, appCode);
 				getStrategy().bootLocalApp(appInfo);
-				log.info("WE DID IT! APP WAS SUCCESSFULLY STARTED!!");
+				return null;
+			}), (v, startError) -> appStarted(startError));
+		});
+	}
 
-				log.info("Sending RExecutionResultMessage to potential executor role %s", potentialExecutorRole);
-				sendMessage(new RExecutionResultMessage(getRoleId(), potentialExecutorRole, AppExecutionStatus.SUCCESS));
+	private void appStarted(RException startError) {
+		AppExecutionStatus status;
+		if (startError == null) {
+			log.info("WE DID IT! APP WAS SUCCESSFULLY STARTED!!");
+			status = AppExecutionStatus.SUCCESS;
 
-			} catch (BundleStartException e) {
-				e.printStackTrace();
-				log.error(e.getMessage());
+		} else if (startError.getCause() instanceof BundleStartException) {
+			BundleStartException e = (BundleStartException) startError.getCause();
+			e.printStackTrace();
+			log.error(e.getMessage());
 
-				log.info("Sending RExecutionResultMessage to potential executor role %s", potentialExecutorRole);
-				sendMessage(new RExecutionResultMessage(getRoleId(), potentialExecutorRole, e.getStatus()));
-				return;
-			} catch (AppRequestException e) {
-				e.printStackTrace();
-				log.error(e.getMessage());
-				log.info("Sending RExecutionResultMessage to potential executor role %s", potentialExecutorRole);
-				sendMessage(new RExecutionResultMessage(getRoleId(), potentialExecutorRole, AppExecutionStatus.PROBLEM_COULD_NOT_START));
-			}
+			log.info("Sending RExecutionResultMessage to potential executor role %s", potentialExecutorRole);
+			whenDone(sendMessageAsync(new RExecutionResultMessage(getRoleId(), potentialExecutorRole, e.getStatus())), (v, sendError) -> finish());
+			return;
+		} else {
+			Throwable e = startError.getCause() instanceof AppRequestException ? startError.getCause() : startError;
+			e.printStackTrace();
+			log.error(e.getMessage());
+			status = AppExecutionStatus.PROBLEM_COULD_NOT_START;
+		}
 
-			// send back gossipping info to INITIATOR to ensure INITITATOR knows about us in case of failures.
-			getStrategy().gossipInformationTo(initiatorRole.getNodeId());
+		log.info("Sending RExecutionResultMessage to potential executor role %s", potentialExecutorRole);
+		CompletableFuture<Void> resultSent = sendMessageAsync(new RExecutionResultMessage(getRoleId(), potentialExecutorRole, status));
 
-			getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR, "Executing");
-			log.info("Execution successful, app is running.");
+		// send back gossipping info to INITIATOR to ensure INITITATOR knows about us in case of failures.
+		getStrategy().gossipInformationTo(initiatorRole.getNodeId());
 
-			log.info("Sending RAcknowledgeExecutionMessage to potential executor role %s", potentialExecutorRole);
-			sendMessage(new RAcknowledgeExecutionMessage(getRoleId(), potentialExecutorRole, getRoleId()));
+		getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR, "Executing");
+		log.info("Execution successful, app is running.");
 
-			while (true) {
-				
-				fullBooted= true;
+		log.info("Sending RAcknowledgeExecutionMessage to potential executor role %s", potentialExecutorRole);
+		whenDone(resultSent.thenCompose(v -> sendMessageAsync(new RAcknowledgeExecutionMessage(getRoleId(), potentialExecutorRole, getRoleId()))), (v,
+				sendError) -> {
+			if (sendError != null)
+				throw sendError;
 
-				RR2RMessage m;
-				try {
-					ArrayList<Class<? extends RR2RMessage>> classList = new ArrayList<Class<? extends RR2RMessage>>();
-					classList.add(RPingExecutorMessage.class);
-					classList.add(RUIRequestMessage.class);
-					classList.add(RStopAppHandlingMessage.class);
-					m = waitForIncomingMessages(INFINITY, classList);
-				} catch (RTimeoutException e) {
-					log.error("Timeout occurred waiting for incoming RPing, RUIRequest, RStopApp.");
-					return;
-				}
-				
-				if (m instanceof RUIRequestMessage) {
+			uiWorkers= createUIWorkers();
+			fullBooted= true;
+			setState(State.RUNNING);
+		});
+	}
 
-					log.info("Got a RUIRequestMessage; handling it locally...");
+	private void handleUIRequest(final RUIRequestMessage uiRequest) {
+		log.info("Got a RUIRequestMessage; handing it to a worker...");
+		try {
+			uiWorkers.execute(new UIWork(uiRequest));
+		} catch (RejectedExecutionException e) {
+			log.error("Too many UI requests queued for app %s; rejecting request.", appInfo.getName());
+			sendUIResponse(uiRequest, String.format("Application %s is overloaded, please try again later.", appInfo.getName()), 0);
+		}
+	}
 
-					RUIRequestMessage uiRequest = (RUIRequestMessage) m;
-					RoleId sourceRole = uiRequest.getFromRole();
+	/**
+	 * Called on a UI worker, not in the context of the role.
+	 */
+	private void answerUIRequest(RUIRequestMessage uiRequest) {
+		String result;
+		long cacheTTL;
+		try {
+			result = getStrategy().handleLocalUI(appInfo.getName(), uiRequest.getTarget(), uiRequest.getProperties());
+			cacheTTL = getStrategy().getLocalUICacheTTL(appInfo.getName(), uiRequest.getTarget(), uiRequest.getProperties());
+		} catch (AppRequestException e) {
+			// never cache an error
+			result = e.getMessage();
+			cacheTTL = 0;
+		}
 
-					String result = getStrategy().handleLocalUI(appInfo.getName(), uiRequest.getTarget(), uiRequest.getProperties());
+		log.info("Handled; sending back result...");
+		sendUIResponse(uiRequest, result, cacheTTL);
+		log.info("Result sent back.");
+	}
+
+	private void sendUIResponse(RUIRequestMessage uiRequest, String result, long cacheTTL) {
+		sendMessageOneWay(new RUIResponseMessage(getRoleId(), uiRequest.getFromRole(), uiRequest.getRoutingId(), result, cacheTTL)).exceptionally(t -> {
+			log.error("Could not deliver UI response message: %s", t.getMessage());
+			return null;
+		});
+	}
 
-					log.info("Handled; sending back result...");
-					try {
-						sendMessage(new RUIResponseMessage(getRoleId(), sourceRole, result));
-					} catch (RTimeoutException e) {
-						log.error("Timeout occurred sending back UI response message.");
-						return;
+	private ThreadPoolExecutor createUIWorkers() {
+		final AtomicInteger count= new AtomicInteger();
+		final String appName= appInfo.getName();
+		return new ThreadPoolExecutor(Configuration.EXECUTOR_UI_THREADS, Configuration.EXECUTOR_UI_THREADS, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Configuration.EXECUTOR_UI_QUEUE_CAPACITY), new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t= Executors.defaultThreadFactory().newThread(r);
+						t.setName("UI Worker " + count.incrementAndGet() + " " + appName + " " + getNodeId());
+						t.setDaemon(true);
+						return t;
 					}
-					log.info("Result sent back.");
-					continue;
-				}
+				});
+	}
 
-				// PingPong
-				if (m instanceof RPingExecutorMessage) {
-					log.info("Ping received. Sending pong to initiator...");
-					try {
+	/**
+	 * Stops the workers; requests still queued are answered right away, so the requesters need not wait for their timeout.
+	 */
+	private void stopUIWorkers() {
+		if (uiWorkers == null)
+			return;
+
+		String stopped= String.format("Application %s has been stopped, please try again later.", appInfo.getName());
+		for (Runnable queued : uiWorkers.shutdownNow()) {
+			if (queued instanceof UIWork)
+				sendUIResponse(((UIWork) queued).uiRequest, stopped, 0);
+		}
+	}
 
-						// !!! Important: The init role MAY HAVE CHANGED HERE!! So, we update it each time
+	private void handlePing(RPingExecutorMessage ping) {
+		log.info("Ping received. Sending pong to initiator...");
 
-						initiatorRole = ((RPingExecutorMessage) m).getFromRole();
-						sendMessage(new RPongExecutorMessage(getRoleId(), initiatorRole, getStrategy().getNodeInfo()));
-					} catch (RTimeoutException e) {
-						log.error("Timeout occurred sending back pong message to initiator... ignoring.");
-					} catch (RRoleNotFoundException e) {
-						log.error("Role not found in the initiator despite ping and updating...");
-					}
-					continue;
-				}
+		// !!! Important: The init role MAY HAVE CHANGED HERE!! So, we update it each time
 
-				if (m instanceof RStopAppHandlingMessage) {
-					log.info("Got RStopAppHandlingMessage. Shutting down app.");
-					fullBooted= false;
-					stopApp();
-					break;
-				}
-			}
+		initiatorRole = ping.getFromRole();
+		sendMessageOneWay(new RPongExecutorMessage(getRoleId(), initiatorRole, getStrategy().getNodeInfo())).exceptionally(t -> {
+			log.error("Could not deliver pong message to initiator... ignoring: %s", t.getMessage());
+			return null;
+		});
+	}
 
-		} catch (RRoleNotFoundException | REnsembleNotFoundException | RTimeoutException e) {
-			log.error("Exception occurred: %s", e.getMessage());
-			e.printStackTrace();
-		} finally {
-			getStrategy().roleShutdown(this);
-			if (appInfo != null)
-				getStrategy().removeAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR);
-			log.info("Shutting down executor role %s", getRoleId());
-			synchronized(this) {this.roleIsDown= true; }
-		}
+	private void handleStop(RStopAppHandlingMessage stop) {
+		log.info("Got RStopAppHandlingMessage. Shutting down app.");
+		fullBooted= false;
+		stopUIWorkers();
+
+		// stopping the bundle may take long; not on the dispatcher
+		setState(State.STOPPING);
+		whenDone(callBlocking(() -> {
+			stopApp();
+			return null;
+		}), (v, stopError) -> finish());
+	}
+
+	@Override
+	protected void onFailure(RException e) {
+		log.error("Exception occurred: %s", e.getMessage());
+		e.printStackTrace();
+		super.onFailure(e);
+	}
 
+	@Override
+	protected void onFinish() {
+		stopUIWorkers();
+		getStrategy().roleShutdown(this);
+		if (appInfo != null)
+			getStrategy().removeAppRole(appInfo, AbstractStrategy.ROLE_EXECUTOR);
+		log.info("Shutting down executor role %s", getRoleId());
+		synchronized(this) {this.roleIsDown= true; }
 	}
 	
+	/**
+	 * A UI request queued for the workers.
+	 */
+	private class UIWork implements Runnable {
+
+		private final RUIRequestMessage uiRequest;
+
+		UIWork(RUIRequestMessage uiRequest) {
+			this.uiRequest= uiRequest;
+		}
+
+		@Override
+		public void run() {
+			answerUIRequest(uiRequest);
+		}
+	}
+
 	public boolean isFullBooted() {
 		return fullBooted;
 	}
@@ -226,6 +329,9 @@ public class ExecutorRole extends HelenaRole {
 		return roleIsDown;
 	}
 
+	/**
+	 * Called off the dispatcher.
+	 */
 	private void stopApp() {
 		try {
 			getStrategy().stopApp(appInfo.getName());
@@ -237,11 +343,11 @@ public class ExecutorRole extends HelenaRole {
 
 	@Override
 	public void stop() {
-		try {
-			sendMessage(new RStopAppHandlingMessage(getRoleId(), getRoleId(), appInfo));
-		} catch (RRoleNotFoundException | RTimeoutException | REnsembleNotFoundException e) {
-			log.error(e, "Could not properly stop executor due to exception.");
-		}
+		// one-way: stop() may be called from the delivery thread, which must not block on the answer
+		sendMessageOneWay(new RStopAppHandlingMessage(getRoleId(), getRoleId(), appInfo)).exceptionally(t -> {
+			log.error(t, "Could not properly stop executor due to exception.");
+			return null;
+		});
 	}
 
-}
+}
\ No newline at end of file
@@ -8,12 +8,16 @@
 package eu.ascens_ist.scp.node.core.strategy.gossip.roles;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import rice.p2p.commonapi.Id;
 import eu.ascens_ist.scp.node.core.strategy.gossip.GossipHelenaBasedStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.REnsembleNotFoundException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RMailboxFullException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleCreationException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleNotFoundException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RTimeoutException;
@@ -58,11 +62,11 @@ public abstract class HelenaRole implements Runnable {
 	}
 
 	protected <E extends RR2RMessage> E waitForIncomingMessage(int timeoutinms, Class<E> clazz) throws RTimeoutException {
-		return getStrategy().waitForIncomingMessage(timeoutinms, clazz);
+		return getStrategy().waitForIncomingMessage(getRoleId(), timeoutinms, clazz);
 	}
 
 	protected RR2RMessage waitForIncomingMessages(int infinity, Collection<Class<? extends RR2RMessage>> msgs) throws RTimeoutException {
-		return getStrategy().waitForIncomingMessages(infinity, msgs);
+		return getStrategy().waitForIncomingMessages(getRoleId(), infinity, msgs);
 	}
 
 	protected RoleId createLocalRoleInstance(Class<? extends HelenaRole> roleType) throws RRoleCreationException {
@@ -105,18 +109,111 @@ public abstract class HelenaRole implements Runnable {
 			throw ((REnsembleNotFoundException) e);
 		if (e instanceof RRoleNotFoundException)
 			throw ((RRoleNotFoundException) e);
+		if (e instanceof RMailboxFullException)
+			throw ((RMailboxFullException) e);
 		else
 			;// all is fine.
 	}
 
-	protected void sleep(int timeinms) {
+	/**
+	 * Non-blocking variant of {@link #createRoleInstance(Id, Class)}. The future fails with the {@link RException} the blocking variant would throw.
+	 * 
+	 * @param targetNode
+	 * @param roleType
+	 * @return
+	 */
+	protected CompletableFuture<RoleId> createRoleInstanceAsync(Id targetNode, Class<? extends HelenaRole> roleType) {
+
+		RCreateRoleInstanceMessage m = new RCreateRoleInstanceMessage(getRoleId(), targetNode, roleType);
+		return getStrategy().routeFrameworkMessageAsync(m).thenApply(answer -> {
+			RCreateRoleInstanceResultMessage result = (RCreateRoleInstanceResultMessage) answer;
+
+			RRoleCreationException e = result.getRemoteRoleCreationException();
+			if (e != null)
+				throw new CompletionException(e);
+
+			return result.getRoleInstance();
+		});
+	}
+
+	/**
+	 * Non-blocking variant of {@link #getRoleInstance(Id, Class)}. The future fails with the {@link RException} the blocking variant would throw.
+	 * 
+	 * @param targetNode
+	 * @param roleType
+	 * @return
+	 */
+	protected CompletableFuture<RoleId> getRoleInstanceAsync(Id targetNode, Class<? extends HelenaRole> roleType) {
+
+		RGetRoleInstanceMessage m = new RGetRoleInstanceMessage(getRoleId(), targetNode, roleType);
+		return getStrategy().routeFrameworkMessageAsync(m).thenApply(answer -> {
+			RGetRoleInstanceResultMessage result = (RGetRoleInstanceResultMessage) answer;
+
+			RException e = result.getOriginException();
+			if (e instanceof RRoleNotFoundException || e instanceof REnsembleNotFoundException)
+				throw new CompletionException(e);
+
+			return result.getRoleInstance();
+		});
+	}
+
+	/**
+	 * Non-blocking variant of {@link #sendMessage(RR2RMessage)}. This allows keeping several messages in flight and joining on them later with
+	 * {@link #await(CompletableFuture)}.
+	 * 
+	 * @param message
+	 * @return
+	 */
+	protected CompletableFuture<Void> sendMessageAsync(RR2RMessage message) {
+
+		return getStrategy().routeRoleMessageAsync(message).thenApply(this::checkDelivered);
+	}
+
+	/**
+	 * Sends a message without waiting for delivery. Unlike {@link #sendMessageAsync(RR2RMessage)}, no answer message is sent back if the message was
+	 * delivered; the positive ack is piggybacked on later traffic. Use this where the target answers anyway (ping/pong, request/response) or where
+	 * delivery failures are not acted upon. The future fails with {@link RRoleNotFoundException} or {@link REnsembleNotFoundException} if the message
+	 * could not be delivered.
+	 * 
+	 * @param message
+	 * @return
+	 */
+	protected CompletableFuture<Void> sendMessageOneWay(RR2RMessage message) {
+
+		return getStrategy().routeRoleMessageOneWay(message).thenApply(this::checkDelivered);
+	}
+
+	private Void checkDelivered(RRouteRoleMessageResult result) {
+		RException e = result.getRemoteException();
+		if (e instanceof REnsembleNotFoundException || e instanceof RRoleNotFoundException || e instanceof RMailboxFullException)
+			throw new CompletionException(e);
+
+		return null;
+	}
+
+	/**
+	 * Blocks until the given future is done and returns its result. If it failed, the original {@link RException} is rethrown.
+	 * 
+	 * @param future
+	 * @return
+	 * @throws RException
+	 */
+	protected <T> T await(CompletableFuture<T> future) throws RException {
 		try {
-			Thread.sleep(timeinms);
+			return future.get();
 		} catch (InterruptedException e) {
-			// ignore this
+			throw new RTimeoutException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RException)
+				throw (RException) e.getCause();
+			throw new RException(e.getCause());
 		}
 	}
 
+	protected void sleep(int timeinms) {
+		getStrategy().getSCPNode().getEnvironment().sleep(timeinms);
+	}
+
 	public void stop() {
 		// do nothing by default
 	}
@@ -14,23 +14,27 @@ import static eu.ascens_ist.scp.node.Configuration.ZIMORY_UNSUCCESSFUL_ATTEMPTS_
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang.time.DateUtils;
 
 import rice.p2p.commonapi.Id;
 import eu.ascens_ist.scp.node.Configuration;
 import eu.ascens_ist.scp.node.core.SCPNode;
+import eu.ascens_ist.scp.node.core.TimerWheel;
 import eu.ascens_ist.scp.node.core.strategy.AbstractStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.GossipHelenaBasedStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.REnsembleNotFoundException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleCreationException;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleNotFoundException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RTimeoutException;
-import eu.ascens_ist.scp.node.core.strategy.gossip.msg.RR2RMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RAcknowledgeExecutionMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RAskForExecutionMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RAskForExecutorMessage;
@@ -39,8 +43,6 @@ import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RDeclineExecutionMess
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RDeploymentCreatedMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RDeploymentCreationFailedMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RExecutionResultMessage;
-import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RExecutorFailedMessage;
-import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RExecutorFailedRequirementsMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RInitApplicationMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RInternalInitiatorShutdownMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RPingExecutorMessage;
@@ -59,7 +61,17 @@ import eu.ascens_ist.scp.node.logging.Logger;
 import planner.CompositionalMultiPlanner;
 import planner.ConfigurationPlanner;
 
-public class InitiatorRole extends HelenaRole {
+/**
+ * Takes care of the app being executed somewhere: finds (or creates) as many executors as the requirements ask for replicas and observes them by
+ * pinging. Event-driven; the states follow the search/observe cycle. Executors found so far are observed and reported to requesters while the
+ * search for further replicas goes on.
+ * 
+ */
+public class InitiatorRole extends EventDrivenRole<InitiatorRole.State> {
+
+	public enum State {
+		WAITING_FOR_INIT, SEARCHING, WAITING_FOR_EXECUTION_ANSWER, WAITING_FOR_DEPLOYMENT, WAITING_FOR_RETRY, OBSERVING
+	}
 
 	public static boolean TESTMODE = false;
 
@@ -67,16 +79,38 @@ public class InitiatorRole extends HelenaRole {
 
 	private AppInfo appInfo;
 
-	private boolean pinging;
-
-	private Date firstTimeAppRequirementsNotMet;
+	private Map<RoleId, Date> firstTimeAppRequirementsNotMet = new HashMap<>();
 	private Date lastNodeCheck;
 
-	private RoleId executorRole;
+	/**
+	 * The executors (replicas) of the app, in the order they were found.
+	 */
+	private List<RoleId> executors = new ArrayList<>();
+
+	private int replicas = 1;
+
+	/**
+	 * Requesters which asked while there was no executor; they are answered as soon as there is one.
+	 */
+	private List<RoleId> waitingRequesters = new ArrayList<>();
 
 	private boolean isUp = false;
 
 	private boolean shouldLookForExecutor = false;
+
+	private int requestCycleCounter = 1;
+
+	private TimerWheel.Timeout initTimeout;
+
+	/**
+	 * Incremented whenever pinging stops, so timers of an earlier observation do nothing.
+	 */
+	private int pingGeneration;
+	/**
+	 * Executors we are waiting for a pong from.
+	 */
+	private Map<RoleId, TimerWheel.Timeout> pongTimeouts = new HashMap<>();
+	private TimerWheel.Timeout topUpTimeout;
 	
 	
 	//attributes related to the games-based planning
@@ -86,533 +120,599 @@ public class InitiatorRole extends HelenaRole {
 	
 
 	public InitiatorRole(Id ensembleId, Id nodeId, GossipHelenaBasedStrategy strategy) {
-		super(ensembleId, nodeId, strategy);
+		super(ensembleId, nodeId, strategy, State.class, State.WAITING_FOR_INIT);
 		log = LogFactory.get(nodeId + " " + ensembleId + " HELENA.INITIATOR");
+
+		on(State.WAITING_FOR_INIT, RInitApplicationMessage.class, this::handleInit);
+
+		on(State.WAITING_FOR_EXECUTION_ANSWER, RAcknowledgeExecutionMessage.class, this::handleExecutionAcknowledged);
+		on(State.WAITING_FOR_EXECUTION_ANSWER, RDeclineExecutionMessage.class, this::handleExecutionDeclined);
+		on(State.WAITING_FOR_EXECUTION_ANSWER, RExecutionResultMessage.class, this::handleExecutionResult);
+
+		on(State.WAITING_FOR_DEPLOYMENT, RDeploymentCreatedMessage.class, m -> retryLater());
+		on(State.WAITING_FOR_DEPLOYMENT, RDeploymentCreationFailedMessage.class, this::handleDeploymentCreationFailed);
+
+		on(State.OBSERVING, RStopAppHandlingMessage.class, this::handleStopAppHandling);
+
+		for (State state : State.values()) {
+			if (state != State.WAITING_FOR_INIT) {
+				// executors found so far are observed and reported while we look for further replicas
+				on(state, RPongExecutorMessage.class, this::handlePong);
+				on(state, RAskForExecutorMessage.class, this::handleAskForExecutor);
+				// this is a workaround for stopping the initiator from the outside; honoured as soon as the app is initiated.
+				on(state, RInternalInitiatorShutdownMessage.class, this::handleInternalShutdown);
+			}
+		}
 	}
 
 	@Override
-	public void run() {
+	protected void onStart() {
 		log.info("Booting initiator role %s", getRoleId());
+		log.info("Waiting for incoming message RInitApplicationMessage...");
+		initTimeout = after(5000, () -> {
+			log.error("Got at timeout while waiting for RInitApplicationMessage. Shutting down initiator role");
+			finish();
+		});
+	}
 
-		try {
-			log.info("Waiting for incoming message RInitApplicationMessage...");
-			RInitApplicationMessage initMsg;
-			try {
-				initMsg = waitForIncomingMessage(5000, RInitApplicationMessage.class);
-			} catch (RTimeoutException e) {
-				log.error("Got at timeout while waiting for RInitApplicationMessage. Shutting down initiator role");
-				return;
-			}
-			appInfo = initMsg.getAppInfo();
+	private void handleInit(RInitApplicationMessage initMsg) throws RException {
+		initTimeout.cancel();
+		appInfo = initMsg.getAppInfo();
+		replicas = appInfo.getRequirements().getReplicas();
 
-			log.info("Got RInitApplicationMessage. Initiating App...");
-			getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR, "Initiating App");
+		log.info("Got RInitApplicationMessage. Initiating App with %d replica(s)...", replicas);
+		getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR, "Initiating App");
 
-			synchronized (this) {
-				isUp = true;
-			}
+		synchronized (this) {
+			isUp = true;
+		}
 
-			if (TESTMODE) {
-				waitForFlag();
-			}
+		afterTestFlag(this::searchForExecutor);
+	}
 
-			int requestCycleCounter = 1;
+	/**
+	 * First, lookup all nodes to see if there is already an executor we do not know of yet; otherwise, find a new one.
+	 */
+	private void searchForExecutor() throws RException {
+		setState(State.SEARCHING);
+
+		Set<NodeInfo> allNodes = getAllNodeInfosAvailableIncludingOurselves();
+		log.info("Going through all matching nodes; size is %d, checking for existing executor (have %d of %d)...", allNodes.size(),
+				executors.size(), replicas);
+		getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR, "Searching for Executor");
+
+		// First check: ask all nodes which claim to execute the app at
+		// once, then go through the answers in order.
+		Map<Id, CompletableFuture<RoleId>> executorLookups = new LinkedHashMap<>();
+		for (NodeInfo potentialExistingExecutor : allNodes) {
+
+			Id potentialExecutorIdentifierNode = potentialExistingExecutor.getId();
+			if (hostsExecutor(potentialExecutorIdentifierNode))
+				continue;
+
+			// This node might actually already execute the app ---
+			// since we might be a next-iteration initiator.
+			Map<String, String> rolesOfPotentialExecutor = potentialExistingExecutor.getAppRoles().get(appInfo);
+			if (rolesOfPotentialExecutor != null && rolesOfPotentialExecutor.containsKey(AbstractStrategy.ROLE_EXECUTOR))
+				executorLookups.put(potentialExecutorIdentifierNode, getRoleInstanceAsync(potentialExecutorIdentifierNode, ExecutorRole.class));
+		}
 
-			while (true) {
+		checkExistingExecutors(executorLookups.entrySet().iterator(), allNodes);
+	}
 
-				executorRole = null;
+	private void checkExistingExecutors(final Iterator<Map.Entry<Id, CompletableFuture<RoleId>>> lookups, final Set<NodeInfo> allNodes)
+			throws RException {
 
-				// First, lookup all nodes to see if there is already an
-				// executor
+		if (!lookups.hasNext()) {
+			log.info("No existing executor found.");
+			createExecutor(withoutExecutorNodes(allNodes));
+			return;
+		}
 
-				Set<NodeInfo> allNodes = getAllNodeInfosAvailableIncludingOurselves();
-				log.info("Going through all matching nodes; size is %d, checking for existing executor...", allNodes.size());
-				getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR, "Searching for Executor");
+		final Map.Entry<Id, CompletableFuture<RoleId>> executorLookup = lookups.next();
 
-				// First check
-				for (NodeInfo potentialExistingExecutor : allNodes) {
+		// might be, check...
+		whenDone(executorLookup.getValue(), (existingExecutor, error) -> {
+			if (error != null) {
+				checkExistingExecutors(lookups, allNodes);
+				return;
+			}
 
-					Id potentialExecutorIdentifierNode = potentialExistingExecutor.getId();
+			if (existingExecutor.getNodeId().equals(this.getNodeId())) {
+				log.info("Executor is running on initiator node. Shutting down executor.");
+				whenDone(sendMessageAsync(new RStopAppHandlingMessage(this.getRoleId(), existingExecutor, appInfo)), (v, stopError) -> {
+					if (stopError != null)
+						checkExistingExecutors(lookups, allNodes);
+					else
+						waitUntilExecutorIsGone(executorLookup.getKey(), lookups, allNodes);
+				});
+				return;
+			}
 
-					// This node might actually already execute the app ---
-					// since we might be a next-iteration initiator.
-					Map<String, String> rolesOfPotentialExecutor = potentialExistingExecutor.getAppRoles().get(appInfo);
-					if (rolesOfPotentialExecutor != null && rolesOfPotentialExecutor.containsKey(AbstractStrategy.ROLE_EXECUTOR)) {
-						// might be, check...
-						try {
-							executorRole = getRoleInstance(potentialExecutorIdentifierNode, ExecutorRole.class);
-							if (executorRole.getNodeId().equals(this.getNodeId())) {
-								log.info("Executor is running on initiator node. Shutting down executor.");
-								sendMessage(new RStopAppHandlingMessage(this.getRoleId(), executorRole, appInfo));
-								while (executorRole != null) {
-									executorRole = getRoleInstance(potentialExecutorIdentifierNode, ExecutorRole.class);
-								}
-							}
-							break;
+			executorFound(existingExecutor);
+		});
+	}
 
-						} catch (RTimeoutException | RRoleNotFoundException | REnsembleNotFoundException e) {
-							executorRole = null;
-						}
-					}
+	private void waitUntilExecutorIsGone(final Id executorNode, final Iterator<Map.Entry<Id, CompletableFuture<RoleId>>> lookups,
+			final Set<NodeInfo> allNodes) {
 
+		whenDone(getRoleInstanceAsync(executorNode, ExecutorRole.class), (stillThere, error) -> {
+			if (error != null)
+				checkExistingExecutors(lookups, allNodes);
+			else
+				waitUntilExecutorIsGone(executorNode, lookups, allNodes);
+		});
+	}
+
+	private void createExecutor(Set<NodeInfo> allNodes) throws RException {
+
+		//passing requirements information to the games-based planner
+		appReq = appInfo.getRequirements();
+		
+		//call planner
+		plan = new CompositionalMultiPlanner();
+		plan.setApplicationRequirements(0, (int)appReq.getCPUCores(), 
+										(int)appReq.getCPUSpeed(), appReq.getCPULoad(),
+										(int)appReq.getTotalMemory(), (int)appReq.getFreeMemory());
+		plan.setApplicationRequirements(1, (int)appReq.getCPUCores(), 
+										(int)appReq.getCPUSpeed(), appReq.getCPULoad(),
+										(int)appReq.getTotalMemory(), (int)appReq.getFreeMemory());
+		log.info("Requirements are: cpu core-%d, cpu speed-%d, cpu loads-%f, total memory-%d, free memory- %d",
+				(int)appReq.getCPUCores(), (int)appReq.getCPUSpeed(), appReq.getCPULoad(),
+				(int)appReq.getTotalMemory(), (int)appReq.getFreeMemory());
+				
+		log.info("Number of all node is %d ",allNodes.size());
+		if (allNodes.isEmpty()) {
+			log.info("All nodes already execute the app.");
+			noExecutorFound();
+			return;
+		}
+		if(allNodes.size() > plan.getMaxResource()) {
+			log.error("Number of nodes is greater, cannot synthesize");
+			noExecutorFound();
+			return;
+		}
+
+		int i=0;
+		
+		for (NodeInfo potentialExistingExecutor : allNodes) {
+			Id potentialExecutorIdentifierNode = potentialExistingExecutor.getId();
+			log.info("Got the potential executor role %s", potentialExecutorIdentifierNode.toString());
+			plan.setNodeCapabilities(i, potentialExistingExecutor.getIdString(), potentialExistingExecutor.getCpuCores(), 
+									potentialExistingExecutor.getCpuSpeed(), potentialExistingExecutor.getCpuLoad(),
+									(int)potentialExistingExecutor.getMemTotal(), (int)potentialExistingExecutor.getMemFree(), 
+									potentialExistingExecutor.getLocationString());
+			i++;
+		}	
+								
+		// synthesizing the plan is expensive; not on the dispatcher
+		final CompositionalMultiPlanner planToGenerate = plan;
+		whenDone(callBlocking(() -> {
+			planToGenerate.generate();
+			return planToGenerate.getDecision(0);
+		}), (nodeName, error) -> {
+			if (error != null) {
+				log.error("Could not synthesize a plan: %s", error.getMessage());
+				noExecutorFound();
+				return;
+			}
+			askPotentialExecutor(nodeName, allNodes);
+		});
+	}
+
+	private void askPotentialExecutor(String nodeName, Set<NodeInfo> allNodes) throws RException {
+		Id potentialExecutorIdentifierNode = null;
+		for (NodeInfo potentialExecutor : allNodes) {
+			if (nodeName.equalsIgnoreCase(potentialExecutor.getIdString())) {
+				potentialExecutorIdentifierNode = potentialExecutor.getId();
+				log.info("SELECTED NODE IS : %s", nodeName);
+				log.info("SELECTED NODE ID IS : %s", potentialExecutorIdentifierNode);
+			}//end of if
+		}//end of for
+		
+		log.info("Creating potential executor role on  %s", potentialExecutorIdentifierNode);
+		whenDone(createRoleInstanceAsync(potentialExecutorIdentifierNode, PotentialExecutorRole.class), (potExRole, error) -> {
+			if (error instanceof RTimeoutException) {
+				log.error("Got at timeout while waiting for PotentialExecutorRole.");
+				searchForExecutor();
+				return;
+			}
+			if (error != null)
+				throw error;
+			log.info("Got the potential executor role %s", potExRole);
+
+			log.info("Sending RAskForExecutionMessag to potential executor role %s", potExRole);
+			whenDone(sendMessageAsync(new RAskForExecutionMessage(getRoleId(), potExRole, appInfo)), (v, sendError) -> {
+				if (sendError instanceof RTimeoutException) {
+					log.error("Got at timeout while waiting for answer from RAskForExecutionMessage.");
+					searchForExecutor();
+					return;
 				}
+				if (sendError != null)
+					throw sendError;
+
+				log.info("Waiting for incoming message RAcknowledgeExecutionMessage, RDeclineExecutionMessage or RExecutionResultMessage from %s",
+						potExRole);
+				setState(State.WAITING_FOR_EXECUTION_ANSWER);
+			});
+		});
+	}
 
-				if (executorRole == null) {
-					log.info("No existing executor found.");
-
-				    
-                    
-					//=============================
-					
-					//passing requirements information to the games-based planner
-					appReq = appInfo.getRequirements();
-					
-					//call planner
-					plan = new CompositionalMultiPlanner();
-					plan.setApplicationRequirements(0, (int)appReq.getCPUCores(), 
-													(int)appReq.getCPUSpeed(), appReq.getCPULoad(),
-													(int)appReq.getTotalMemory(), (int)appReq.getFreeMemory());
-					plan.setApplicationRequirements(1, (int)appReq.getCPUCores(), 
-													(int)appReq.getCPUSpeed(), appReq.getCPULoad(),
-													(int)appReq.getTotalMemory(), (int)appReq.getFreeMemory());
-					log.info("Requirements are: cpu core-%d, cpu speed-%d, cpu loads-%f, total memory-%d, free memory- %d",
-							(int)appReq.getCPUCores(), (int)appReq.getCPUSpeed(), appReq.getCPULoad(),
-							(int)appReq.getTotalMemory(), (int)appReq.getFreeMemory());
-							
-					log.info("Number of all node is %d ",allNodes.size());
-					if(allNodes.size() > plan.getMaxResource())
-						log.error("Number of nodes is greater, cannot synthesize");
-					else {
-						int i=0;
-						
-						for (NodeInfo potentialExistingExecutor : allNodes) {
-							Id potentialExecutorIdentifierNode = potentialExistingExecutor.getId();
-							log.info("Got the potential executor role %s", potentialExecutorIdentifierNode.toString());
-							plan.setNodeCapabilities(i, potentialExistingExecutor.getIdString(), potentialExistingExecutor.getCpuCores(), 
-													potentialExistingExecutor.getCpuSpeed(), potentialExistingExecutor.getCpuLoad(),
-													(int)potentialExistingExecutor.getMemTotal(), (int)potentialExistingExecutor.getMemFree(), 
-													potentialExistingExecutor.getLocationString());
-							i++;
-						}	
-												
-						plan.generate();
-						String nodeName = plan.getDecision(0);
-						Id potentialExecutorIdentifierNode = null;
-						for (NodeInfo potentialExecutor : allNodes) {
-							if (nodeName.equalsIgnoreCase(potentialExecutor.getIdString())) {
-								potentialExecutorIdentifierNode = potentialExecutor.getId();
-								log.info("SELECTED NODE IS : %s", nodeName);
-								log.info("SELECTED NODE ID IS : %s", potentialExecutorIdentifierNode);
-							}//end of if
-						}//end of for
-						
-						log.info("Creating potential executor role on  %s", potentialExecutorIdentifierNode);
-						RoleId potExRole;
-						try {
-							potExRole = createRoleInstance(potentialExecutorIdentifierNode, PotentialExecutorRole.class);
-						} catch (RTimeoutException e) {
-							log.error("Got at timeout while waiting for PotentialExecutorRole.");
-							continue;
-						}
-						log.info("Got the potential executor role %s", potExRole);
-
-						log.info("Sending RAskForExecutionMessag to potential executor role %s", potExRole);
-						try {
-							sendMessage(new RAskForExecutionMessage(getRoleId(), potExRole, appInfo));
-						} catch (RTimeoutException e) {
-							log.error("Got at timeout while waiting for answer from RAskForExecutionMessage.");
-							continue;
-						}
+	private void handleExecutionAcknowledged(RAcknowledgeExecutionMessage answer) throws RException {
+		log.info("Got RAcknowledgeExecutionMessage.");
+		executorFound(answer.getExecutorRole());
+	}
 
-						ArrayList<Class<? extends RR2RMessage>> classList = new ArrayList<>();
-						classList.add(RAcknowledgeExecutionMessage.class);
-						classList.add(RDeclineExecutionMessage.class);
-						classList.add(RExecutionResultMessage.class);
-						log.info(
-								"Waiting for incoming message RAcknowledgeExecutionMessage, RDeclineExecutionMessage or RExecutionResultMessage from %s",
-								potExRole);
-						try {
-							RR2RMessage answer = waitForIncomingMessages(INFINITY, classList);
-
-							if (answer instanceof RAcknowledgeExecutionMessage) {
-								log.info("Got RAcknowledgeExecutionMessage.");
-								executorRole = ((RAcknowledgeExecutionMessage) answer).getExecutorRole();
-								break;
-							} else if (answer instanceof RDeclineExecutionMessage) {
-								log.info("Got RDeclineExecutionMessage. Continue search for executor.");
-								continue;
-							} else if (answer instanceof RExecutionResultMessage) {
-								RExecutionResultMessage resultMessage = (RExecutionResultMessage) answer;
-								if (resultMessage.getStatus() == AppExecutionStatus.PROBLEM_COULD_NOT_START) {
-									log.info("Got RExecutionResultMessage and app could not start. Continue search for executor.");
-								}
-								continue;
-							}
+	private void handleExecutionDeclined(RDeclineExecutionMessage answer) throws RException {
+		log.info("Got RDeclineExecutionMessage. Continue search for executor.");
+		continueSearch();
+	}
 
-						} catch (RTimeoutException e) {
-							log.error("Got at timeout while waiting for RAcknowledgeExecutionMessage, RDeclineExecutionMessage or RExecutionResultMessage.");
-							continue;
-						}						
-						
-					}//end of else for possible synthesis
-					
-			 		
-					//=============================
-//					Set<NodeInfo> allMatchingNodes = getMatchingNodesFromGossipStorage(appInfo.getRequirements());
-//					log.info("Going through all matching nodes; size is %d, finding potential executor...", allMatchingNodes.size());
-//					for (NodeInfo potentialExecutor : allMatchingNodes) {
-//						Id potentialExecutorIdentifierNode = potentialExecutor.getId();
-//
-//						log.info("Creating potential executor role on  %s", potentialExecutorIdentifierNode);
-//						RoleId potExRole;
-//						try {
-//							potExRole = createRoleInstance(potentialExecutorIdentifierNode, PotentialExecutorRole.class);
-//						} catch (RTimeoutException e) {
-//							log.error("Got at timeout while waiting for PotentialExecutorRole.");
-//							continue;
-//						}
-//						log.info("Got the potential executor role %s", potExRole);
-//
-//						log.info("Sending RAskForExecutionMessag to potential executor role %s", potExRole);
-//						try {
-//							sendMessage(new RAskForExecutionMessage(getRoleId(), potExRole, appInfo));
-//						} catch (RTimeoutException e) {
-//							log.error("Got at timeout while waiting for answer from RAskForExecutionMessage.");
-//							continue;
-//						}
-//
-//						ArrayList<Class<? extends RR2RMessage>> classList = new ArrayList<>();
-//						classList.add(RAcknowledgeExecutionMessage.class);
-//						classList.add(RDeclineExecutionMessage.class);
-//						classList.add(RExecutionResultMessage.class);
-//						log.info(
-//								"Waiting for incoming message RAcknowledgeExecutionMessage, RDeclineExecutionMessage or RExecutionResultMessage from %s",
-//								potExRole);
-//						try {
-//							RR2RMessage answer = waitForIncomingMessages(INFINITY, classList);
-//
-//							if (answer instanceof RAcknowledgeExecutionMessage) {
-//								log.info("Got RAcknowledgeExecutionMessage.");
-//								executorRole = ((RAcknowledgeExecutionMessage) answer).getExecutorRole();
-//								break;
-//							} else if (answer instanceof RDeclineExecutionMessage) {
-//								log.info("Got RDeclineExecutionMessage. Continue search for executor.");
-//								continue;
-//							} else if (answer instanceof RExecutionResultMessage) {
-//								RExecutionResultMessage resultMessage = (RExecutionResultMessage) answer;
-//								if (resultMessage.getStatus() == AppExecutionStatus.PROBLEM_COULD_NOT_START) {
-//									log.info("Got RExecutionResultMessage and app could not start. Continue search for executor.");
-//								}
-//								continue;
-//							}
-//
-//						} catch (RTimeoutException e) {
-//							log.error("Got at timeout while waiting for RAcknowledgeExecutionMessage, RDeclineExecutionMessage or RExecutionResultMessage.");
-//							continue;
-//						}
-//					}//end of for
-				}//end of if
-
-				if (executorRole == null) {
-					if (requestCycleCounter % ZIMORY_UNSUCCESSFUL_ATTEMPTS_BEFORE_VM_CREATION == 0) {
-						if (!appInfo.getRequirements().getNoVirtualization()) {
-							if (Configuration.validIaasConnection()) {
-								log.info("Could not find an executor after %d attempts. Creating deployment creator", requestCycleCounter);
-								// after specified attempts,
-								// start deployment creator role
-
-								RoleId creatorRole = createLocalRoleInstance(DeploymentCreatorRole.class);
-
-								sendMessage(new RCreateDeploymentMessage(getRoleId(), creatorRole, appInfo));
-								ArrayList<Class<? extends RR2RMessage>> classList = new ArrayList<Class<? extends RR2RMessage>>();
-								classList.add(RDeploymentCreatedMessage.class);
-								classList.add(RDeploymentCreationFailedMessage.class);
-
-								RR2RMessage answer = waitForIncomingMessages(INFINITY, classList);
-
-								if (answer instanceof RDeploymentCreationFailedMessage) {
-									log.info("Deployment could not be created. Repeat the initiating process");
-									requestCycleCounter = 1;
-								}
-							} else {
-								log.info(
-										"Could not find an executor after %d attempts and can not create deployment since there is no valid IaaS information.",
-										requestCycleCounter);
-							}
-						} else {
-							log.info(
-									"Could not find an executor after %d attempts and can not create deployment since virtualization is not allowed for this app.",
-									requestCycleCounter);
-						}
-					} else {
-						log.error("We could not find an executor among the existing matching nodes. Waiting and retrying.");
-					}
-					sleep(2000);
+	private void handleExecutionResult(RExecutionResultMessage resultMessage) throws RException {
+		if (resultMessage.getStatus() == AppExecutionStatus.PROBLEM_COULD_NOT_START) {
+			log.info("Got RExecutionResultMessage and app could not start. Continue search for executor.");
+		}
+		continueSearch();
+	}
+
+	/**
+	 * Without any executor, we search on right away; a further replica is searched for later, so a node declining does not keep us busy.
+	 */
+	private void continueSearch() throws RException {
+		if (executors.isEmpty())
+			searchForExecutor();
+		else
+			topUpLater();
+	}
+
+	private void noExecutorFound() throws RException {
+		if (!executors.isEmpty()) {
+			log.info("Could not find another executor; running on %d of %d replicas for now.", executors.size(), replicas);
+			topUpLater();
+			return;
+		}
 
-					requestCycleCounter++;
-					continue;
+		if (requestCycleCounter % ZIMORY_UNSUCCESSFUL_ATTEMPTS_BEFORE_VM_CREATION == 0) {
+			if (!appInfo.getRequirements().getNoVirtualization()) {
+				if (Configuration.validIaasConnection()) {
+					log.info("Could not find an executor after %d attempts. Creating deployment creator", requestCycleCounter);
+					// after specified attempts,
+					// start deployment creator role
+
+					RoleId creatorRole = createLocalRoleInstance(DeploymentCreatorRole.class);
+
+					whenDone(sendMessageAsync(new RCreateDeploymentMessage(getRoleId(), creatorRole, appInfo)), (v, error) -> {
+						if (error != null)
+							throw error;
+						setState(State.WAITING_FOR_DEPLOYMENT);
+					});
+					return;
+				} else {
+					log.info(
+							"Could not find an executor after %d attempts and can not create deployment since there is no valid IaaS information.",
+							requestCycleCounter);
 				}
-				requestCycleCounter = 1;
-
-				log.info("We assume that the executor is now properly running and simply wait for any other incoming message.");
-
-				boolean stop = false;
-				startPinging(executorRole);
-
-				while (true) {
-					ArrayList<Class<? extends RR2RMessage>> classList = new ArrayList<Class<? extends RR2RMessage>>();
-					classList.add(RExecutorFailedMessage.class);
-					classList.add(RExecutorFailedRequirementsMessage.class);
-					classList.add(RStopAppHandlingMessage.class);
-					classList.add(RAskForExecutorMessage.class);
-					classList.add(RInternalInitiatorShutdownMessage.class);
-
-					RR2RMessage initiatorNotifyMessage = waitForIncomingMessages(INFINITY, classList);
-
-					if (initiatorNotifyMessage instanceof RInternalInitiatorShutdownMessage) {
-						// this is a workaround for stopping the initiator from
-						// the outside.
-						// TODO we might want to replace this with dedicated
-						// thread stopping at some point.
-
-						// Do NOT shut down executor.
-						stop = true;
-						executorRole = null;
-						log.info("Got internal shutdown message,  shutting down now.");
-						break;
-					}
+			} else {
+				log.info(
+						"Could not find an executor after %d attempts and can not create deployment since virtualization is not allowed for this app.",
+						requestCycleCounter);
+			}
+		} else {
+			log.error("We could not find an executor among the existing matching nodes. Waiting and retrying.");
+		}
+		retryLater();
+	}
 
-					if (initiatorNotifyMessage instanceof RAskForExecutorMessage) {
-						RAskForExecutorMessage msg = (RAskForExecutorMessage) initiatorNotifyMessage;
+	private void handleDeploymentCreationFailed(RDeploymentCreationFailedMessage answer) {
+		log.info("Deployment could not be created. Repeat the initiating process");
+		requestCycleCounter = 1;
+		retryLater();
+	}
 
-						RoleId originRole = msg.getFromRole();
-						if (msg.getAppInfo().equals(appInfo))
-							sendMessage(new RReportOnExecutorMessage(getRoleId(), originRole, executorRole));
-						continue;
-					}
+	private void retryLater() {
+		setState(State.WAITING_FOR_RETRY);
+		after(2000, () -> {
+			requestCycleCounter++;
+			searchForExecutor();
+		});
+	}
 
-					if (initiatorNotifyMessage instanceof RExecutorFailedMessage) {
-						// our initiator thread notified us that the executor is
-						// down. We need to find a new one.
-						
-						if (TESTMODE) {
-							waitForFlag();
-						}
+	private void executorFound(RoleId executor) throws RException {
+		executors.add(executor);
+		requestCycleCounter = 1;
+		startPinging(executor);
 
-						// we are not stopping but finding a new executor =>
-						// loop
-						executorRole = null;
-						stop = false;
-						break;
-					}
+		for (RoleId requester : waitingRequesters)
+			reportExecutors(requester);
+		waitingRequesters.clear();
 
-					if (initiatorNotifyMessage instanceof RExecutorFailedRequirementsMessage) {
-						// our initiator thread notified us that the executor is
-						// failed meeting the requirements. We need to find a
-						// new one.
+		if (executors.size() < replicas) {
+			log.info("Have %d of %d executors; looking for another one.", executors.size(), replicas);
+			searchForExecutor();
+			return;
+		}
 
-						sendMessage(new RStopAppHandlingMessage(getRoleId(), executorRole, appInfo));
-						executorRole = null;
-						stop = false;
-						break;
-					}
+		log.info("We assume that the executors are now properly running and simply wait for any other incoming message.");
+		setState(State.OBSERVING);
+	}
 
-					if (initiatorNotifyMessage instanceof RStopAppHandlingMessage) {
-						// We are told to stop execution of this app.
+	/**
+	 * Looks for further replicas after a while, unless we are busy otherwise by then.
+	 */
+	private void topUpLater() {
+		setState(State.OBSERVING);
+		if (topUpTimeout != null)
+			topUpTimeout.cancel();
+		topUpTimeout = after(LIVENESS_CHECK_INTERVAL, () -> {
+			if (getState() == State.OBSERVING && executors.size() < replicas)
+				searchForExecutor();
+		});
+	}
 
-						sendMessage(new RStopAppHandlingMessage(getRoleId(), executorRole, appInfo));
+	private boolean hostsExecutor(Id nodeId) {
+		for (RoleId executor : executors) {
+			if (executor.getNodeId().equals(nodeId))
+				return true;
+		}
+		return false;
+	}
 
-						// BEGIN ZIMORY INTEGRATION if executor is virtualized,
-						// shutdown deployment
-						NodeInfo executorInfo = getStrategy().getNeighbourInformation(executorRole.getNodeId());
-						if (executorInfo.isVirtualized()) {
-							log.info("Executor for app %s runs on virtualized machine. Stopping deployment %s.", appInfo.getName(),
-									executorInfo.getDeploymentId());
-							try {
-								RoleId stopperRole = createLocalRoleInstance(DeploymentStopperRole.class);
+	private Set<NodeInfo> withoutExecutorNodes(Set<NodeInfo> nodes) {
+		Set<NodeInfo> remaining = new HashSet<>();
+		for (NodeInfo nodeInfo : nodes) {
+			if (!hostsExecutor(nodeInfo.getId()))
+				remaining.add(nodeInfo);
+		}
+		return remaining;
+	}
 
-								sendMessage(new RStopDeploymentMessage(getRoleId(), stopperRole, appInfo, executorInfo));
-							} catch (RRoleCreationException e) {
-							}
-						}
-						// END ZIMORY INTEGRATION
-						executorRole = null;
-						stop = true;
-						break;
-					}
-				}
+	private void handleAskForExecutor(RAskForExecutorMessage msg) {
+		RoleId originRole = msg.getFromRole();
+		if (!msg.getAppInfo().equals(appInfo))
+			return;
 
-				stopPinging(executorRole);
+		if (executors.isEmpty())
+			waitingRequesters.add(originRole);
+		else
+			reportExecutors(originRole);
+	}
 
-				if (stop)
-					break;
-			}
+	private void reportExecutors(final RoleId requester) {
+		sendMessageAsync(new RReportOnExecutorMessage(getRoleId(), requester, executors)).exceptionally(t -> {
+			log.error("Could not report executor to %s: %s", requester, t.getMessage());
+			return null;
+		});
+	}
+
+	private void handleStopAppHandling(RStopAppHandlingMessage msg) {
+		// We are told to stop execution of this app.
 
-		} catch (RTimeoutException | RRoleCreationException | RRoleNotFoundException | REnsembleNotFoundException e) {
-			log.error("Exception occurred: %s", e.getMessage());
-		} finally {
-			getStrategy().roleShutdown(this);
-			if (appInfo != null)
-				getStrategy().removeAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR);
-			log.info("Shutting down initiator role %s", getRoleId());
-			synchronized (this) {
-				isUp = false;
+		for (RoleId executor : executors) {
+			sendMessageOneWay(new RStopAppHandlingMessage(getRoleId(), executor, appInfo));
+
+			// BEGIN ZIMORY INTEGRATION if executor is virtualized,
+			// shutdown deployment
+			NodeInfo executorInfo = getStrategy().getNeighbourInformation(executor.getNodeId());
+			if (executorInfo != null && executorInfo.isVirtualized()) {
+				log.info("Executor for app %s runs on virtualized machine. Stopping deployment %s.", appInfo.getName(),
+						executorInfo.getDeploymentId());
+				stopDeployment(executorInfo);
 			}
+			// END ZIMORY INTEGRATION
 		}
+		stopPinging();
+		executors.clear();
+		finish();
 	}
 
-	private void waitForFlag() {
-		// WAIT HERE BEFORE SEARCHING FOR AN EXECUTOR TO ENABLE
-		// MAKING SURE THAT THERE IS NO EXECUTOR.
-		while (true) {
-			synchronized (InitiatorRole.this) {
-				if (shouldLookForExecutor)
-					break;
-			}
-			try {
-				log.info("WAITING FOR FLAG...");
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		}
+	private void handleInternalShutdown(RInternalInitiatorShutdownMessage msg) {
+		// Do NOT shut down executors.
+		log.info("Got internal shutdown message,  shutting down now.");
+		stopPinging();
+		executors.clear();
+		finish();
 	}
 
-	private void startPinging(final RoleId executorRole) {
+	/**
+	 * Our pinging noticed that an executor is down. We need to find a new one (unless we are searching anyway).
+	 */
+	private void executorFailed(RoleId executor) throws RException {
+		dropExecutor(executor);
+		if (getState() == State.OBSERVING)
+			afterTestFlag(this::searchForExecutor);
+	}
 
-		pinging = true;
+	/**
+	 * Our pinging noticed that an executor failed meeting the requirements. We need to find a new one (unless we are searching anyway).
+	 */
+	private void executorFailedRequirements(RoleId executor) throws RException {
+		sendMessageOneWay(new RStopAppHandlingMessage(getRoleId(), executor, appInfo));
+		dropExecutor(executor);
+		if (getState() == State.OBSERVING)
+			searchForExecutor();
+	}
 
-		Runnable r = new Runnable() {
+	private void dropExecutor(RoleId executor) {
+		executors.remove(executor);
+		firstTimeAppRequirementsNotMet.remove(executor);
+		TimerWheel.Timeout pongTimeout = pongTimeouts.remove(executor);
+		if (pongTimeout != null)
+			pongTimeout.cancel();
+	}
 
-			@Override
-			public void run() {
+	/**
+	 * Runs the task right away, or, in test mode, once the flag allows looking for an executor.
+	 */
+	private void afterTestFlag(final Task next) throws RException {
+		if (!TESTMODE) {
+			next.run();
+			return;
+		}
 
-				// Before we start, wait a good long while for the executor to
-				// properly boot.
-				log.info("Starting Pinging Thread... waiting 15 seconds before actually pinging.");
-				getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR, "Observing Executor");
-				try {
-					Thread.sleep(15000);
-				} catch (InterruptedException e3) {
-				}
+		// WAIT HERE BEFORE SEARCHING FOR AN EXECUTOR TO ENABLE
+		// MAKING SURE THAT THERE IS NO EXECUTOR.
+		boolean flag;
+		synchronized (InitiatorRole.this) {
+			flag = shouldLookForExecutor;
+		}
+		if (flag) {
+			next.run();
+			return;
+		}
+		log.info("WAITING FOR FLAG...");
+		after(100, () -> afterTestFlag(next));
+	}
 
-				int sleepTime = LIVENESS_CHECK_INTERVAL;
+	private void startPinging(final RoleId executor) {
+		final int generation = pingGeneration;
 
-				while (pinging) {
+		// Before we start, wait a good long while for the executor to
+		// properly boot.
+		log.info("Starting Pinging %s... waiting 15 seconds before actually pinging.", executor);
+		getStrategy().addAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR, "Observing Executor");
+		after(15000, () -> ping(executor, generation));
+	}
 
-					log.info("Sending Ping to executor...");
+	private void ping(final RoleId executor, final int generation) {
+		if (generation != pingGeneration || !executors.contains(executor))
+			return;
+
+		log.info("Sending Ping to executor %s...", executor);
+		whenDone(sendMessageOneWay(new RPingExecutorMessage(getRoleId(), executor)), (v, error) -> {
+			// a missing ack alone is no failure (the pong counts); a missing role is.
+			if (error != null && !(error instanceof RTimeoutException) && generation == pingGeneration && executors.contains(executor))
+				pingFailed(executor, error);
+		});
+		pongTimeouts.put(executor, after(5000, () -> {
+			if (generation == pingGeneration && pongTimeouts.remove(executor) != null)
+				pingFailed(executor, new RTimeoutException());
+		}));
+	}
 
-					try {
-						sendMessage(new RPingExecutorMessage(getRoleId(), executorRole));
-						RPongExecutorMessage pong = waitForIncomingMessage(5000, RPongExecutorMessage.class);
+	private void pingFailed(RoleId executor, RException e) throws RException {
+		log.info("Got an exception while pinging %s. Aborting: %s", executor, e.getMessage());
+		executorFailed(executor);
+	}
 
-						log.info("Pong received. Executor still there.");
+	private void handlePong(RPongExecutorMessage pong) throws RException {
+		final RoleId executor = pong.getFromRole();
+		TimerWheel.Timeout pongTimeout = pongTimeouts.remove(executor);
+		if (pongTimeout == null) {
+			log.debug("Dropping outdated pong.");
+			return;
+		}
+		pongTimeout.cancel();
 
-						if (!pong.getNodeInfo().canExecute(appInfo.getRequirements())) {
-							Date time = new Date();
-							if (firstTimeAppRequirementsNotMet == null)
-								firstTimeAppRequirementsNotMet = time;
+		log.info("Pong received. Executor %s still there.", executor);
 
-							// now sleep time 1 second
-							sleepTime = 1000;
+		int sleepTime = LIVENESS_CHECK_INTERVAL;
 
-							// when virtualized, it can happen that executor
-							// dows not meet CPU requirements. Do not look for
-							// another executor in this case
-							if (pong.getNodeInfo().isVirtualized()) {
-								log.info("Executor for app %s does not meet requirements for %d seconds but is virtualized", appInfo,
-										(time.getTime() - firstTimeAppRequirementsNotMet.getTime()) / 1000);
-							} else {
-								log.info("Executor for app %s does not meet requirements for %d seconds", appInfo,
-										(time.getTime() - firstTimeAppRequirementsNotMet.getTime()) / 1000);
+		if (!pong.getNodeInfo().canExecute(appInfo.getRequirements())) {
+			Date time = new Date();
+			firstTimeAppRequirementsNotMet.putIfAbsent(executor, time);
+			Date notMetSince = firstTimeAppRequirementsNotMet.get(executor);
 
-								if (firstTimeAppRequirementsNotMet.before(DateUtils.addMilliseconds(time,
-										-EXECUTOR_REQUIREMENTS_EXCEEDING_INTERVAL))) {
+			// now sleep time 1 second
+			sleepTime = 1000;
 
-									try {
-										sendMessage(new RExecutorFailedRequirementsMessage(getRoleId(), getRoleId()));
-									} catch (RRoleNotFoundException | RTimeoutException | REnsembleNotFoundException e2) {
-										log.error("Could not send message to myself: %s", e2.getMessage());
-									}
-									pinging = false;
-								}
-							}
+			// when virtualized, it can happen that executor
+			// dows not meet CPU requirements. Do not look for
+			// another executor in this case
+			if (pong.getNodeInfo().isVirtualized()) {
+				log.info("Executor for app %s does not meet requirements for %d seconds but is virtualized", appInfo,
+						(time.getTime() - notMetSince.getTime()) / 1000);
+			} else {
+				log.info("Executor for app %s does not meet requirements for %d seconds", appInfo,
+						(time.getTime() - notMetSince.getTime()) / 1000);
 
-						} else {
-							firstTimeAppRequirementsNotMet = null;
-							sleepTime = LIVENESS_CHECK_INTERVAL;
-							// BEGIN ZIMORY INTEGRATION
-							if (pong.getNodeInfo().isVirtualized()) {
-								Date time = new Date();
-								if (lastNodeCheck == null)
-									lastNodeCheck = time;
-
-								if (lastNodeCheck.before(DateUtils.addMilliseconds(new Date(),
-										-ZIMORY_CHECK_VIRTUALIZED_NODE_NEEDED_INTERVAL))) {
-									SCPNode self = getStrategy().getSCPNode();
-
-									if (self.getPastryNode().isClosest(
-											(rice.pastry.Id) self.getEnvironment().createIdHashFromArbitraryString(appInfo.getName()))) {
-										// We are closest and clearly initiator
-										// hence we are in the initiator role
-										Id executorId = executorRole.getNodeId();
-
-										if (executorId != null) {
-											for (NodeInfo nodeInfoToCheck : getStrategy().getGossiplyKnownNodes()) {
-												NodeInfo executorInfo = getStrategy().nodeInfoSuitableForExecution(appInfo,
-														nodeInfoToCheck, executorId);
-												if (executorInfo != null) {
-													try {
-														RoleId stopperRole = createLocalRoleInstance(DeploymentStopperRole.class);
-
-														sendMessage(new RStopDeploymentMessage(getRoleId(), stopperRole, appInfo,
-																executorInfo));
-													} catch (RRoleCreationException e) {
-													}
-												}
-											}
-										}
-									}
-									lastNodeCheck = time;
-								}
-							}
-							// END ZIMORY INTEGRATION
-						}
+				if (notMetSince.before(DateUtils.addMilliseconds(time,
+						-EXECUTOR_REQUIREMENTS_EXCEEDING_INTERVAL))) {
 
-					} catch (RRoleNotFoundException | RTimeoutException | REnsembleNotFoundException e1) {
+					executorFailedRequirements(executor);
+					return;
+				}
+			}
 
-						log.info("Got an exception while pinging. Aborting: %s", e1.getMessage());
-						// send message to myself about this
-						try {
-							sendMessage(new RExecutorFailedMessage(getRoleId(), getRoleId()));
-						} catch (RRoleNotFoundException | RTimeoutException | REnsembleNotFoundException e2) {
-							log.error("Could not send message to myself: %s", e2.getMessage());
+		} else {
+			firstTimeAppRequirementsNotMet.remove(executor);
+			// BEGIN ZIMORY INTEGRATION
+			if (pong.getNodeInfo().isVirtualized()) {
+				Date time = new Date();
+				if (lastNodeCheck == null)
+					lastNodeCheck = time;
+
+				if (lastNodeCheck.before(DateUtils.addMilliseconds(new Date(),
+						-ZIMORY_CHECK_VIRTUALIZED_NODE_NEEDED_INTERVAL))) {
+					SCPNode self = getStrategy().getSCPNode();
+
+					if (self.getPastryNode().isClosest(
+							(rice.pastry.Id) self.getEnvironment().createIdHashFromArbitraryString(appInfo.getName()))) {
+						// We are closest and clearly initiator
+						// hence we are in the initiator role
+						Id executorId = executor.getNodeId();
+
+						if (executorId != null) {
+							for (NodeInfo nodeInfoToCheck : getStrategy().getGossiplyKnownNodes()) {
+								NodeInfo executorInfo = getStrategy().nodeInfoSuitableForExecution(appInfo,
+										nodeInfoToCheck, executorId);
+								if (executorInfo != null) {
+									stopDeployment(executorInfo);
+								}
+							}
 						}
-						pinging = false;
-						return;
-					}
-
-					try {
-						Thread.sleep(sleepTime);
-					} catch (InterruptedException e) {
-						// ignore
 					}
+					lastNodeCheck = time;
 				}
 			}
-		};
+			// END ZIMORY INTEGRATION
+		}
+
+		final int generation = pingGeneration;
+		after(sleepTime, () -> ping(executor, generation));
+	}
+
+	private void stopPinging() {
+		pingGeneration++;
+		for (TimerWheel.Timeout pongTimeout : pongTimeouts.values())
+			pongTimeout.cancel();
+		pongTimeouts.clear();
+		if (topUpTimeout != null)
+			topUpTimeout.cancel();
+	}
+
+	private void stopDeployment(NodeInfo executorInfo) {
+		try {
+			RoleId stopperRole = createLocalRoleInstance(DeploymentStopperRole.class);
 
-		new Thread(r, "Initiator Pinger Thread").start();
+			sendMessageAsync(new RStopDeploymentMessage(getRoleId(), stopperRole, appInfo, executorInfo)).exceptionally(t -> {
+				log.error("Could not send RStopDeploymentMessage: %s", t.getMessage());
+				return null;
+			});
+		} catch (RRoleCreationException e) {
+		}
+	}
 
+	@Override
+	protected void onFailure(RException e) {
+		log.error("Exception occurred: %s", e.getMessage());
+		super.onFailure(e);
 	}
 
-	private void stopPinging(RoleId executorRole) {
-		pinging = false;
+	@Override
+	protected void onFinish() {
+		stopPinging();
+		getStrategy().roleShutdown(this);
+		if (appInfo != null)
+			getStrategy().removeAppRole(appInfo, AbstractStrategy.ROLE_INITIATOR);
+		log.info("Shutting down initiator role %s", getRoleId());
+		synchronized (this) {
+			isUp = false;
+		}
 	}
 
 	private Set<NodeInfo> getAllNodeInfosAvailableIncludingOurselves() {
 
-		Set<NodeInfo> nodeInfos = getStrategy().getGossiplyKnownNodes();
+		List<NodeInfo> nodeInfos = getStrategy().getGossiplyKnownNodes();
 		Set<NodeInfo> nodesInHere = new HashSet<>();
 		nodesInHere.addAll(nodeInfos);
 		nodesInHere.add(getStrategy().getNodeInfo());
@@ -621,7 +721,7 @@ public class InitiatorRole extends HelenaRole {
 
 	private Set<NodeInfo> getMatchingNodesFromGossipStorage(Requirements appReqs) {
 
-		Set<NodeInfo> nodeInfos = getStrategy().getGossiplyKnownNodes();
+		List<NodeInfo> nodeInfos = getStrategy().getGossiplyKnownNodes();
 		Set<NodeInfo> matchingNodes = new HashSet<>();
 
 		for (NodeInfo rNodeInfo : nodeInfos) {
@@ -634,13 +734,13 @@ public class InitiatorRole extends HelenaRole {
 	@Override
 	public void stop() {
 
-		try {
-			log.info("STOP called on initiator.");
-			sendMessage(new RInternalInitiatorShutdownMessage(getRoleId(), getRoleId()));
-			log.info("Sent internal shutdown message.");
-		} catch (RRoleNotFoundException | RTimeoutException | REnsembleNotFoundException e) {
-			log.error("Could not properly shut down initiator: %s", e.getMessage());
-		}
+		log.info("STOP called on initiator.");
+		// one-way: stop() may be called from the delivery thread, which must not block on the answer
+		sendMessageOneWay(new RInternalInitiatorShutdownMessage(getRoleId(), getRoleId())).exceptionally(t -> {
+			log.error("Could not properly shut down initiator: %s", t.getMessage());
+			return null;
+		});
+		log.info("Sent internal shutdown message.");
 	}
 
 	public synchronized boolean isUp() {
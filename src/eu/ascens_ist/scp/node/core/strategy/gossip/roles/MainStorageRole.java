@@ -126,11 +126,10 @@ public class MainStorageRole extends HelenaRole {
 						getStrategy().removeFromPAST(unstore.getAppInfo());
 
 						log.info("Sending stop message to initiator");
-						try {
-							sendMessage(new RStopAppHandlingMessage(getRoleId(), initRole, appInfo));
-						} catch (RTimeoutException e) {
-							log.error("Got at timeout sending RStopAppHandlingMessage to initiator. Shutting down main storage role.");
-						}
+						sendMessageOneWay(new RStopAppHandlingMessage(getRoleId(), initRole, appInfo)).exceptionally(t -> {
+							log.error("Could not deliver RStopAppHandlingMessage to initiator: %s", t.getMessage());
+							return null;
+						});
 
 						break; // end.
 					}
@@ -153,11 +152,11 @@ public class MainStorageRole extends HelenaRole {
 
 	@Override
 	public void stop() {
-		try {
-			sendMessage(new RInternalMainStorageShutdownMessage(getRoleId(), getRoleId()));
-		} catch (RRoleNotFoundException | RTimeoutException | REnsembleNotFoundException e) {
+		// one-way: stop() may be called from the delivery thread, which must not block on the answer
+		sendMessageOneWay(new RInternalMainStorageShutdownMessage(getRoleId(), getRoleId())).exceptionally(t -> {
 			log.error("Could not properly shut down main storage node.");
-		}
+			return null;
+		});
 	}
 
 }
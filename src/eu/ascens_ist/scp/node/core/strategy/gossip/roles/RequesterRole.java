@@ -7,113 +7,312 @@
  */
 package eu.ascens_ist.scp.node.core.strategy.gossip.roles;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import rice.p2p.commonapi.Id;
+import eu.ascens_ist.scp.node.core.TimerWheel;
 import eu.ascens_ist.scp.node.core.strategy.gossip.GossipHelenaBasedStrategy;
 import eu.ascens_ist.scp.node.core.strategy.gossip.RoleId;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.REnsembleNotFoundException;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RRoleNotFoundException;
-import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RTimeoutException;
+import eu.ascens_ist.scp.node.core.strategy.gossip.exc.RException;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RAskForExecutorMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RReportOnExecutorMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RRequestorRequestMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RUIRequestMessage;
 import eu.ascens_ist.scp.node.core.strategy.gossip.msg.r2r.RUIResponseMessage;
 import eu.ascens_ist.scp.node.info.AppInfo;
+import eu.ascens_ist.scp.node.info.NodeInfo;
 import eu.ascens_ist.scp.node.logging.LogFactory;
 import eu.ascens_ist.scp.node.logging.Logger;
 
-public class RequesterRole extends HelenaRole {
+/**
+ * Forwards the UI requests for one app on this node to the executor and hands the responses back. There is one long-lived requester per app and node,
+ * which handles any number of concurrent requests; requests and responses are matched by their routing id. The requester finishes after it has been
+ * idle for a while.
+ *
+ * How long a request may take is decided by the strategy alone, which tells the requester when it has given up on a request.
+ *
+ */
+public class RequesterRole extends EventDrivenRole<RequesterRole.State> {
+
+	public enum State {
+		SERVING
+	}
+
+	/**
+	 * Milliseconds without requests after which the requester finishes.
+	 */
+	private static final int IDLE_TIMEOUT = 5 * 60 * 1000;
+
+	/**
+	 * Milliseconds to wait for the initiator to report on the executor.
+	 */
+	private static final int REPORT_TIMEOUT = 5000;
 
 	private Logger requesterLog;
 
 	private AppInfo appInfo;
 
+	/**
+	 * Requests forwarded to an executor, by routing id.
+	 */
+	private Map<Id, PendingRequest> forwarded;
+
+	/**
+	 * Requests waiting for the initiator to tell us the executor.
+	 */
+	private List<RRequestorRequestMessage> waitingForExecutor;
+
+	private boolean askingInitiator;
+
+	private TimerWheel.Timeout reportTimeout;
+
+	private long lastActivity;
+
 	public RequesterRole(Id ensembleId, Id nodeId, GossipHelenaBasedStrategy strategy) {
-		super(ensembleId, nodeId, strategy);
+		super(ensembleId, nodeId, strategy, State.class, State.SERVING);
 		requesterLog = LogFactory.get(nodeId + " " + ensembleId + " HELENA.REQUESTER");
+
+		forwarded = new HashMap<>();
+		waitingForExecutor = new ArrayList<>();
+
+		on(State.SERVING, RRequestorRequestMessage.class, this::handleRequest);
+		on(State.SERVING, RReportOnExecutorMessage.class, this::handleReport);
+		on(State.SERVING, RUIResponseMessage.class, this::handleResponse);
 	}
 
 	@Override
-	public void run() {
-
+	protected void onStart() {
 		requesterLog.info("Booting requester role %s", getRoleId());
+		lastActivity = System.currentTimeMillis();
+		checkIdle();
+	}
 
-		try {
-			requesterLog.info("Waiting for RRequestorRequestMessage...");
+	private void handleRequest(RRequestorRequestMessage request) {
+		lastActivity = System.currentTimeMillis();
+		if (appInfo == null) {
+			appInfo = request.getAppInfo();
+			getStrategy().addAppRole(appInfo, GossipHelenaBasedStrategy.ROLE_REQUESTER, "Forwarding UI requests");
+		}
+		route(request);
+	}
 
-			RRequestorRequestMessage reqReq;
-			try {
-				reqReq = waitForIncomingMessage(INFINITY, RRequestorRequestMessage.class);
-			} catch (RTimeoutException e1) {
-				requesterLog.info("Timeout waiting for RRequestorRequestMessage...");
-				return;
+	private void route(RRequestorRequestMessage request) {
+		// Try the executors we know of first; this is a single hop.
+		List<RoleId> replicas = getStrategy().getExecutorLocationCache().get(appInfo.getName());
+		if (!replicas.isEmpty())
+			forwardToKnownExecutor(request, chooseExecutor(replicas));
+		else
+			waitForExecutor(request);
+	}
+
+	/**
+	 * Picks the replica with the fewest requests outstanding from here; on a tie, the one whose node had the lowest CPU load in the last gossip.
+	 */
+	private RoleId chooseExecutor(List<RoleId> replicas) {
+		Map<RoleId, Integer> outstanding = new HashMap<>();
+		for (PendingRequest pending : forwarded.values())
+			outstanding.merge(pending.executor, 1, Integer::sum);
+
+		RoleId best = null;
+		int bestOutstanding = Integer.MAX_VALUE;
+		double bestLoad = Double.MAX_VALUE;
+		for (RoleId replica : replicas) {
+			int count = outstanding.getOrDefault(replica, 0);
+			double load = cpuLoadOf(replica);
+			if (count < bestOutstanding || (count == bestOutstanding && load < bestLoad)) {
+				best = replica;
+				bestOutstanding = count;
+				bestLoad = load;
 			}
+		}
+		return best;
+	}
 
-			appInfo = reqReq.getAppInfo();
-			Id routingId = reqReq.getRoutingId();
+	private double cpuLoadOf(RoleId executor) {
+		NodeInfo nodeInfo = executor.getNodeId().equals(getNodeId()) ? getStrategy().getNodeInfo() : getStrategy().getNeighbourInformation(
+				executor.getNodeId());
+		return nodeInfo != null ? nodeInfo.getCpuLoad() : 100.0;
+	}
 
-			getStrategy().addAppRole(appInfo, GossipHelenaBasedStrategy.ROLE_REQUESTER, ""); // TODO add role status
+	private void forwardToKnownExecutor(final RRequestorRequestMessage request, final RoleId executor) {
+		requesterLog.info("Forward UI request to known executor %s....", executor);
+		track(request, executor);
 
-			Id initatorId = createIdfromString(appInfo.getName());
+		// with answer, so we notice right away if the executor is gone
+		whenDone(sendMessageAsync(toUIRequest(request, executor)), (v, error) -> {
+			if (error == null)
+				return;
+			requesterLog.info("Known executor is gone (%s), asking initiator...", error.getMessage());
+			getStrategy().getExecutorLocationCache().invalidate(appInfo.getName(), executor);
+			if (untrack(request.getRoutingId()) != null)
+				route(request);
+		});
+	}
+
+	private void waitForExecutor(RRequestorRequestMessage request) {
+		waitingForExecutor.add(request);
+		if (askingInitiator)
+			return;
 
-			// Find initiator role
-			requesterLog.info("Grabbing initiator role...");
-			RoleId initiator;
-			try {
-				initiator = getRoleInstance(initatorId, InitiatorRole.class);
-			} catch (RTimeoutException e) {
-				requesterLog.info("Timeout waiting for initator role...");
+		askingInitiator = true;
+		Id initiatorId = createIdfromString(appInfo.getName());
+
+		// Find initiator role
+		requesterLog.info("Grabbing initiator role...");
+		whenDone(getRoleInstanceAsync(initiatorId, InitiatorRole.class), (initiator, error) -> {
+			if (error != null) {
+				failWaiting("Could not find the initiator of the app: " + error.getMessage());
 				return;
 			}
 
 			requesterLog.info("Asking initiator for executor...");
-			try {
-				sendMessage(new RAskForExecutorMessage(getRoleId(), initiator, appInfo));
-			} catch (RTimeoutException e) {
-				requesterLog.info("Timeout sending RAskForExecutorMessage");
-				return;
-			}
+			whenDone(sendMessageAsync(new RAskForExecutorMessage(getRoleId(), initiator, appInfo)), (v, sendError) -> {
+				if (sendError != null) {
+					failWaiting("Could not ask the initiator for the executor: " + sendError.getMessage());
+					return;
+				}
 
-			requesterLog.info("Wait for answer from initiator on executor...");
-			RReportOnExecutorMessage answer;
-			try {
-				answer = waitForIncomingMessage(5000, RReportOnExecutorMessage.class);
-			} catch (RTimeoutException e) {
-				requesterLog.info("Timeout waiting for answer from initiator on executor...");
-				return;
-			}
+				requesterLog.info("Wait for answer from initiator on executor...");
+				reportTimeout = after(REPORT_TIMEOUT, () -> failWaiting("Timeout waiting for answer from initiator on executor."));
+			});
+		});
+	}
 
-			RoleId executor = answer.getExecutorRole();
+	private void handleReport(RReportOnExecutorMessage report) {
+		if (!askingInitiator) {
+			requesterLog.debug("Dropping outdated report on executor.");
+			return;
+		}
+		askingInitiator = false;
+		if (reportTimeout != null)
+			reportTimeout.cancel();
 
-			// forward request to executor, wait for answer
-			requesterLog.info("Forward UI request to executor....");
-			try {
-				sendMessage(new RUIRequestMessage(getRoleId(), executor, routingId, appInfo, reqReq.getTarget(), reqReq.getProperties()));
-			} catch (RTimeoutException e) {
-				requesterLog.info("Timeout sending UI request to executor...");
-			}
+		List<RoleId> replicas = report.getExecutorRoles();
+		if (replicas.isEmpty()) {
+			failWaiting("The app has no executor at the moment.");
+			return;
+		}
+		getStrategy().getExecutorLocationCache().put(appInfo.getName(), replicas);
 
-			requesterLog.info("Waiting for UI response from  executor....");
-			RUIResponseMessage uiResponse;
-			try {
-				uiResponse = waitForIncomingMessage(20000, RUIResponseMessage.class);
-			} catch (RTimeoutException e) {
+		// forward requests to the executors, wait for answers
+		requesterLog.info("Forward %d UI request(s) to %d executor(s)....", waitingForExecutor.size(), replicas.size());
+		List<RRequestorRequestMessage> requests = new ArrayList<>(waitingForExecutor);
+		waitingForExecutor.clear();
+		for (final RRequestorRequestMessage request : requests) {
+			final RoleId executor = chooseExecutor(replicas);
+			track(request, executor);
+			whenDone(sendMessageOneWay(toUIRequest(request, executor)), (v, error) -> {
+				if (error == null)
+					return;
+				requesterLog.info("Reported executor is gone (%s), trying another one...", error.getMessage());
+				getStrategy().getExecutorLocationCache().invalidate(appInfo.getName(), executor);
+				if (untrack(request.getRoutingId()) != null)
+					route(request);
+			});
+		}
+	}
+
+	/**
+	 * The UI request has not been answered in time, and nobody waits for the response anymore; the requester forgets the request, and the executor it
+	 * went to.
+	 *
+	 * @param routingId
+	 */
+	public void responseTimedOut(final Id routingId) {
+		submit(() -> {
+			PendingRequest pending = untrack(routingId);
+			if (pending != null) {
 				requesterLog.info("Timeout waiting for UI response from executor....");
+				getStrategy().getExecutorLocationCache().invalidate(appInfo.getName(), pending.executor);
+			} else
+				waitingForExecutor.removeIf(request -> request.getRoutingId().equals(routingId));
+		});
+	}
+
+	private void handleResponse(RUIResponseMessage response) {
+		PendingRequest pending = untrack(response.getRoutingId());
+		if (pending == null) {
+			requesterLog.debug("Dropping UI response for %s, which is not pending anymore.", response.getRoutingId());
+			return;
+		}
+
+		requesterLog.info("Got info from executor, sending back to UI.");
+
+		// send back to the UI
+		getStrategy().setUIResponseFor(response.getRoutingId(), appInfo, pending.request.getTarget(), response.getResult(), response.getCacheTTL());
+	}
+
+	private RUIRequestMessage toUIRequest(RRequestorRequestMessage request, RoleId executor) {
+		return new RUIRequestMessage(getRoleId(), executor, request.getRoutingId(), appInfo, request.getTarget(), request.getProperties());
+	}
+
+	private void track(RRequestorRequestMessage request, RoleId executor) {
+		forwarded.put(request.getRoutingId(), new PendingRequest(request, executor));
+	}
+
+	private PendingRequest untrack(Id routingId) {
+		return forwarded.remove(routingId);
+	}
+
+	private void failWaiting(String reason) {
+		requesterLog.info(reason);
+		askingInitiator = false;
+		for (RRequestorRequestMessage request : waitingForExecutor)
+			getStrategy().failUIResponseFor(request.getRoutingId(), reason);
+		waitingForExecutor.clear();
+	}
+
+	private void checkIdle() {
+		long idle = System.currentTimeMillis() - lastActivity;
+		if (forwarded.isEmpty() && waitingForExecutor.isEmpty() && idle >= IDLE_TIMEOUT) {
+			if (getStrategy().retireRequester(this)) {
+				requesterLog.info("Idle for %d seconds.", idle / 1000);
+				finish();
 				return;
 			}
+			// requests have just been queued; they are handled next
+		}
+		after((int) Math.max(IDLE_TIMEOUT - idle, 1000), this::checkIdle);
+	}
+
+	@Override
+	protected void onFailure(RException e) {
+		requesterLog.error("Exception occurred: %s", e.getMessage());
+		super.onFailure(e);
+	}
+
+	@Override
+	protected void onFinish() {
+		if (!waitingForExecutor.isEmpty())
+			failWaiting("Requester role shut down.");
+		for (Id routingId : new ArrayList<>(forwarded.keySet())) {
+			untrack(routingId);
+			getStrategy().failUIResponseFor(routingId, "Requester role shut down.");
+		}
+
+		getStrategy().roleShutdown(this);
+		if (appInfo != null)
+			getStrategy().removeAppRole(appInfo, GossipHelenaBasedStrategy.ROLE_REQUESTER);
+		requesterLog.info("Shutting down requester role %s.", getRoleId());
+	}
+
+	@Override
+	public void stop() {
+		submit(() -> finish());
+	}
+
+	private static class PendingRequest {
 
-			requesterLog.info("Got info from executor, sending back to UI.");
+		private final RRequestorRequestMessage request;
 
-			// send back to the UI
-			getStrategy().setUIResponseFor(routingId, appInfo, reqReq.getTarget(), uiResponse.getResult());
+		private final RoleId executor;
 
-		} catch (RRoleNotFoundException | REnsembleNotFoundException e) {
-			requesterLog.error("Exception occurred: %s", e.getMessage());
-		} finally {
-			getStrategy().roleShutdown(this);
-			if (appInfo != null)
-				getStrategy().removeAppRole(appInfo, GossipHelenaBasedStrategy.ROLE_REQUESTER);
-			requesterLog.info("Shutting down requester role %s.", getRoleId());
+		PendingRequest(RRequestorRequestMessage request, RoleId executor) {
+			this.request = request;
+			this.executor = executor;
 		}
 	}
 
@@ -13,6 +13,7 @@ import java.net.InetSocketAddress;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import rice.p2p.commonapi.Id;
 import eu.ascens_ist.scp.node.Configuration;
@@ -45,12 +46,40 @@ public class NodeInfo implements Serializable, Comparable<NodeInfo> {
 
 	private transient IStrategy strategy;
 
+	/**
+	 * Load and free space as of the last content version; smaller
+	 * fluctuations do not make a new version
+	 */
+	private transient double announcedCpuLoad;
+	private transient long announcedMemFree;
+	private transient long announcedDiskFree;
+
+	/**
+	 * Percentage points the CPU load has to change by for a new content
+	 * version
+	 */
+	private static final double CPU_LOAD_CHANGE = 10;
+
+	/**
+	 * Fraction of the total memory or disk space the free space has to change
+	 * by for a new content version
+	 */
+	private static final long FREE_SPACE_CHANGE_DIVISOR = 10;
+
 	private static final long serialVersionUID = 1L;
 	private final InetAddress address;
 	private final int port;
 	private final Id id;
 	private final String fullId;
+	/**
+	 * Heartbeat: when the node was last known to be alive
+	 */
 	private long timestamp;
+	/**
+	 * Content version: when roles, capabilities, location or (noticeably) the
+	 * load last changed
+	 */
+	private long version;
 
 	private int cpuCores = 0;
 	private int cpuSpeed = 0; // in MHz
@@ -92,7 +121,7 @@ public class NodeInfo implements Serializable, Comparable<NodeInfo> {
 		this.updateIsSingleNode = false;
 		updateSystemInformation();
 
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void initialize() {
@@ -112,6 +141,8 @@ public class NodeInfo implements Serializable, Comparable<NodeInfo> {
 	}
 
 	public synchronized void updateSystemInformation() {
+		String capabilitiesBefore = describeCapabilities();
+
 		if (updateCpuCores)
 			cpuCores = EnvironmentSensor.getCPUCores();
 		if (updateCpuSpeed)
@@ -141,7 +172,19 @@ public class NodeInfo implements Serializable, Comparable<NodeInfo> {
 		if (updateIsSingleNode)
 			singleNode = this.strategy.getSCPNode().getPastryNode().getLeafSet().getUniqueCount() == 1;
 
-		markUpdated();
+		if (!describeCapabilities().equals(capabilitiesBefore) || Math.abs(cpuLoad - announcedCpuLoad) >= CPU_LOAD_CHANGE
+				|| Math.abs(memFree - announcedMemFree) > memTotal / FREE_SPACE_CHANGE_DIVISOR
+				|| Math.abs(diskFree - announcedDiskFree) > diskTotal / FREE_SPACE_CHANGE_DIVISOR)
+			markChanged();
+		else
+			markUpdated();
+	}
+
+	/**
+	 * The capabilities which only change rarely, in comparable form
+	 */
+	private String describeCapabilities() {
+		return cpuCores + "/" + cpuSpeed + "/" + cpuModel + "/" + memTotal + "/" + diskTotal + "/" + virtualized + "/" + singleNode;
 	}
 
 	public InetAddress getAddress() {
@@ -231,73 +274,73 @@ public class NodeInfo implements Serializable, Comparable<NodeInfo> {
 	public synchronized void setCpuCores(int cpuCores) {
 		updateCpuCores = false;
 		this.cpuCores = cpuCores;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setCpuSpeed(int cpuSpeed) {
 		updateCpuSpeed = false;
 		this.cpuSpeed = cpuSpeed;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setCpuModel(String cpuModel) {
 		updateCpuModel = false;
 		this.cpuModel = cpuModel;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setCpuLoad(double cpuLoad) {
 		updateCpuLoad = false;
 		this.cpuLoad = cpuLoad;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setMemTotal(long memTotal) {
 		updateMemTotal = false;
 		this.memTotal = memTotal;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setMemUsed(long memUsed) {
 		updateMemUsed = false;
 		this.memUsed = memUsed;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setMemFree(long memFree) {
 		updateMemFree = false;
 		this.memFree = memFree;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setDiskTotal(long diskTotal) {
 		updateDiskTotal = false;
 		this.diskTotal = diskTotal;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setDiskFree(long diskFree) {
 		updateDiskFree = false;
 		this.diskFree = diskFree;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setLocation(NodeLocation location) {
 		updateLocation = false;
 		this.location = location;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setVirtualized(boolean virtualized) {
 		updateVirtualized = false;
 		this.virtualized = virtualized;
-		markUpdated();
+		markChanged();
 	}
 
 	public synchronized void setDeploymentId(int id) {
 		updateDeploymentId = false;
 		this.deploymentId = id;
-		markUpdated();
+		markChanged();
 	}
 
 	public boolean canExecute(Requirements appReqs) {
@@ -329,10 +372,44 @@ public class NodeInfo implements Serializable, Comparable<NodeInfo> {
 		timestamp = new Date().getTime();
 	}
 
+	/**
+	 * New content version; always later than the previous one, also across
+	 * restarts of the node
+	 */
+	private void markChanged() {
+		markUpdated();
+		version = Math.max(timestamp, version + 1);
+		announcedCpuLoad = cpuLoad;
+		announcedMemFree = memFree;
+		announcedDiskFree = diskFree;
+	}
+
+	/**
+	 * @return the heartbeat, i.e. when the node was last known to be alive
+	 */
 	public long getTimestamp() {
 		return timestamp;
 	}
 
+	/**
+	 * @return the content version; node infos with the same version only
+	 *         differ in their heartbeat (and small load fluctuations)
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Notes that the node was alive at the given time, as heard through
+	 * gossip.
+	 * 
+	 * @param heartbeat
+	 */
+	public synchronized void heartbeat(long heartbeat) {
+		if (heartbeat > timestamp)
+			timestamp = heartbeat;
+	}
+
 	public boolean isTooOld() {
 		return (new Date().getTime() - timestamp) > Configuration.NODE_INFO_EXPIRATION_INTERVAL;
 	}
@@ -396,19 +473,25 @@ public class NodeInfo implements Serializable, Comparable<NodeInfo> {
 			roleMap = new HashMap<>();
 			appRoles.put(appInfo, roleMap);
 		}
+		// re-adding a role with the same status is not a new version
+		boolean changed = !roleMap.containsKey(roleName) || !Objects.equals(roleMap.get(roleName), roleStatus);
 		roleMap.put(roleName, roleStatus);
-		markUpdated();
+		if (changed)
+			markChanged();
+		else
+			markUpdated();
 	}
 
 	public void removeRoleForApp(AppInfo appInfo, String roleName) {
 		Map<String, String> roleMap = appRoles.get(appInfo);
-		if (roleMap != null)
-			roleMap.remove(roleName);
+		if (roleMap == null || !roleMap.containsKey(roleName))
+			return;
 
-		if (roleMap == null || roleMap.isEmpty())
+		roleMap.remove(roleName);
+		if (roleMap.isEmpty())
 			appRoles.remove(appInfo);
 
-		markUpdated();
+		markChanged();
 	}
 
 	public boolean hasRoleForApp(AppInfo appInfo, String roleName) {
@@ -144,6 +144,17 @@ public class Requirements implements Serializable {
 		return locations;
 	}
 
+	/**
+	 * @return the number of executors the app should run on (at least 1)
+	 */
+	public int getReplicas() {
+		if (req.get("Replicas") == null) {
+			return 1;
+		}
+
+		return Math.max(1, Integer.parseInt(req.get("Replicas").trim()));
+	}
+
 	public boolean getNoVirtualization() {
 		if (req.get("NoVirtualization") == null) {
 			return false;
@@ -0,0 +1,34 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.messages;
+
+import java.util.List;
+
+import rice.p2p.commonapi.Id;
+import rice.p2p.commonapi.Message;
+
+/**
+ * Envelope for several direct messages to the same node, which are routed through Pastry as one message and unpacked again on delivery.
+ * 
+ */
+public class SCPBatchMessage extends AbstractSCPDirectMessage {
+
+	private static final long serialVersionUID= 1L;
+
+	private List<Message> messages;
+
+	public SCPBatchMessage(Id fromNode, Id toNode, List<Message> messages) {
+		super(fromNode, toNode);
+		this.messages= messages;
+	}
+
+	public List<Message> getMessages() {
+		return messages;
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * This file belongs to the Science Cloud Platform (SCP) Implementation of the
+ * Autonomic Cloud Case Study of the ASCENS EU project.
+ *
+ * For more information, see http://ascens-ist.eu/cloud.
+ *
+ */
+package eu.ascens_ist.scp.node.webservice;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * Admission control for app requests arriving at this node. Per app, at most
+ * a configured number of requests may be in flight, and requests are admitted
+ * at a configured rate (token bucket). Requests beyond that are rejected right
+ * away instead of being pushed into the role layer.
+ * 
+ */
+public class AppAdmission {
+
+	public enum Decision {
+		ADMITTED, RATE_LIMITED, OVERLOADED
+	}
+
+	private Map<String, AppLimiter> limiters;
+
+	private int maxConcurrent;
+
+	private double ratePerSecond;
+
+	private int burst;
+
+	/**
+	 * @param maxConcurrent
+	 *            requests per app in flight at once
+	 * @param ratePerSecond
+	 *            requests per app and second; 0 for no rate limit
+	 * @param burst
+	 *            requests per app admitted at once after a quiet period
+	 */
+	public AppAdmission(int maxConcurrent, int ratePerSecond, int burst) {
+		this.limiters = new ConcurrentHashMap<>();
+		this.maxConcurrent = maxConcurrent;
+		this.ratePerSecond = ratePerSecond;
+		this.burst = Math.max(burst, 1);
+	}
+
+	/**
+	 * Admits a request to the app, unless it is over its limits. An admitted
+	 * request must be released once it is done.
+	 * 
+	 * @param appName
+	 * @return
+	 */
+	public Decision tryAdmit(String appName) {
+		AppLimiter limiter = getLimiter(appName);
+		// concurrency first, so requests rejected as overloaded do not use up
+		// the rate
+		if (limiter.inFlight.incrementAndGet() > maxConcurrent) {
+			limiter.inFlight.decrementAndGet();
+			limiter.overloaded.incrementAndGet();
+			return Decision.OVERLOADED;
+		}
+		if (!limiter.tryAcquireToken()) {
+			limiter.inFlight.decrementAndGet();
+			limiter.rateLimited.incrementAndGet();
+			return Decision.RATE_LIMITED;
+		}
+		limiter.admitted.incrementAndGet();
+		return Decision.ADMITTED;
+	}
+
+	public void release(String appName) {
+		getLimiter(appName).inFlight.decrementAndGet();
+	}
+
+	/**
+	 * @param appName
+	 * @return the counters of the app on this node
+	 */
+	public Statistics getStatistics(String appName) {
+		AppLimiter limiter = getLimiter(appName);
+		return new Statistics(limiter.inFlight.get(), limiter.admitted.get(), limiter.rateLimited.get(), limiter.overloaded.get());
+	}
+
+	private AppLimiter getLimiter(String appName) {
+		AppLimiter limiter = limiters.get(appName);
+		if (limiter == null) {
+			limiters.putIfAbsent(appName, new AppLimiter(burst, System.nanoTime()));
+			limiter = limiters.get(appName);
+		}
+		return limiter;
+	}
+
+	private class AppLimiter {
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicLong admitted = new AtomicLong();
+
+		private final AtomicLong rateLimited = new AtomicLong();
+
+		private final AtomicLong overloaded = new AtomicLong();
+
+		private double tokens;
+
+		private long lastRefill;
+
+		AppLimiter(double tokens, long now) {
+			this.tokens = tokens;
+			this.lastRefill = now;
+		}
+
+		synchronized boolean tryAcquireToken() {
+			if (ratePerSecond <= 0)
+				return true;
+
+			long now = System.nanoTime();
+			tokens = Math.min(burst, tokens + (now - lastRefill) / 1e9 * ratePerSecond);
+			lastRefill = now;
+			if (tokens < 1)
+				return false;
+			tokens--;
+			return true;
+		}
+	}
+
+	/**
+	 * Counters of one app; shown on the app info page.
+	 */
+	public static class Statistics {
+
+		private final int inFlight;
+
+		private final long admitted;
+
+		private final long rateLimited;
+
+		private final long overloaded;
+
+		public Statistics(int inFlight, long admitted, long rateLimited, long overloaded) {
+			this.inFlight = inFlight;
+			this.admitted = admitted;
+			this.rateLimited = rateLimited;
+			this.overloaded = overloaded;
+		}
+
+		public int getInFlight() {
+			return inFlight;
+		}
+
+		public long getAdmitted() {
+			return admitted;
+		}
+
+		/**
+		 * @return requests rejected with 429 since the app was over its rate
+		 */
+		public long getRateLimited() {
+			return rateLimited;
+		}
+
+		/**
+		 * @return requests rejected with 503 since too many were in flight
+		 */
+		public long getOverloaded() {
+			return overloaded;
+		}
+	}
+}
@@ -15,6 +15,8 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 
@@ -28,9 +30,12 @@ import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.Velocity;
+import org.eclipse.jetty.continuation.Continuation;
+import org.eclipse.jetty.continuation.ContinuationSupport;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 
+import eu.ascens_ist.scp.node.Configuration;
 import eu.ascens_ist.scp.node.NodeBundleActivator;
 import eu.ascens_ist.scp.node.core.SCPNode;
 import eu.ascens_ist.scp.node.core.exceptions.IncorrectUICommandException;
@@ -51,14 +56,34 @@ import eu.ascens_ist.scp.node.logging.Logger;
 public class AppHandler extends AbstractHandler {
 	private static Logger log;
 
+	/**
+	 * Milliseconds after which a suspended app request is given up by the
+	 * server; the strategy times out earlier
+	 */
+	private static final long APP_REQUEST_SUSPEND_TIMEOUT = 30000;
+
+	/**
+	 * Not in HttpServletResponse (yet)
+	 */
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+
+	/**
+	 * Request attribute holding the answer of the app while the request is
+	 * suspended
+	 */
+	private static final String APP_RESULT_ATTRIBUTE = "eu.ascens_ist.scp.appResult";
+
 	private SCPNode node;
 
+	private AppAdmission admission;
+
 	public AppHandler(SCPNode node) {
 		super();
 
 		log = LogFactory.get(node.getId() + " APPHANDLER");
 
 		this.node = node;
+		this.admission = new AppAdmission(Configuration.APP_MAX_CONCURRENT_REQUESTS, Configuration.APP_REQUEST_RATE, Configuration.APP_REQUEST_BURST);
 	}
 
 	@Override
@@ -166,35 +191,105 @@ public class AppHandler extends AbstractHandler {
 		return;
 	}
 
-	private void appRequest(String target, HttpServletRequest request, HttpServletResponse response) throws IOException {
+	/**
+	 * Forwards the request to the app. The request is suspended while the
+	 * roles talk to each other, so no server thread is held; it is resumed as
+	 * soon as the answer (or an error) is there, and the answer is written
+	 * when the server dispatches the request again.
+	 */
+	private void appRequest(String target, final HttpServletRequest request, HttpServletResponse response) throws IOException {
 		String[] tmp = target.split("/");
-		String appName = tmp[1];
+		final String appName = tmp[1];
 		String appTarget = "";
 		for (int i = 2; i < tmp.length; i++) {
 			appTarget += tmp[i] + "/";
 		}
 
-		String appResult;
-		try {
-			IStrategy strategy = this.node.getStrategy();
-			AppInfo appInfo = strategy.getAppInfo(appName);
-			if (appInfo == null)
-				throw new IncorrectUICommandException("Could not find appinfo for app name " + appName);
+		final Continuation continuation = ContinuationSupport.getContinuation(request);
+
+		@SuppressWarnings("unchecked")
+		CompletableFuture<String> answer = (CompletableFuture<String>) request.getAttribute(APP_RESULT_ATTRIBUTE);
+		if (answer != null && answer.isDone()) {
+			renderAppResult(appName, answer, request, response);
+			return;
+		}
+
+		if (continuation.isExpired()) {
+			// the strategy gives up earlier, so this is only a safety net
+			renderError(request, response, String.format("Application %s has not answered in time.", appName));
+			return;
+		}
+
+		IStrategy strategy = this.node.getStrategy();
+		AppInfo appInfo = strategy.getAppInfo(appName);
+		if (appInfo == null) {
+			renderError(request, response, String.format("Application %s has not produced error output: Could not find appinfo for app name %s.", appName,
+					appName));
+			return;
+		}
+
+		// Reject right away if the app is over its limits on this node
+		switch (admission.tryAdmit(appName)) {
+		case RATE_LIMITED:
+			renderRejection(request, response, SC_TOO_MANY_REQUESTS, String.format("Too many requests for application %s, please slow down.", appName));
+			return;
+		case OVERLOADED:
+			renderRejection(request, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+					String.format("Application %s is overloaded, please try again later.", appName));
+			return;
+		case ADMITTED:
+			break;
+		}
 
+		CompletableFuture<String> appResult;
+		try {
+			continuation.setTimeout(APP_REQUEST_SUSPEND_TIMEOUT);
+			continuation.suspend(response);
 			appResult = strategy.appRequest(appInfo, appTarget, request, response);
-			if (appResult == null) {
-				renderError(request, response, String.format("Application %s has not produced any output.", appName));
-				return;
+		} catch (SCPException | RuntimeException e) {
+			// not handed off, so nobody else releases the slot or completes
+			admission.release(appName);
+			try {
+				renderError(request, response, String.format("Application %s has not produced error output: %s.", appName, e.getMessage()));
+			} finally {
+				if (continuation.isSuspended())
+					continuation.complete();
 			}
-		} catch (SCPException e) {
-			renderError(request, response, String.format("Application %s has not produced error output: %s.", appName, e.getMessage()));
 			return;
 		}
 
-		// Write as string
-		OutputStreamWriter outputStream = new OutputStreamWriter(response.getOutputStream(), "UTF-8");
-		outputStream.write(appResult);
-		outputStream.close();
+		// Only resume here; the future is completed on a role or timer
+		// thread, which must not be held up by writing to the client.
+		request.setAttribute(APP_RESULT_ATTRIBUTE, appResult);
+		appResult.whenComplete((result, t) -> {
+			admission.release(appName);
+			try {
+				continuation.resume();
+			} catch (IllegalStateException e) {
+				// expired meanwhile, the request has been answered already
+			}
+		});
+	}
+
+	private void renderAppResult(String appName, CompletableFuture<String> answer, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		String result;
+		try {
+			result = answer.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			renderError(request, response, String.format("Application %s has not produced error output: %s.", appName, cause.getMessage()));
+			return;
+		}
+
+		if (result == null) {
+			renderError(request, response, String.format("Application %s has not produced any output.", appName));
+		} else {
+			// Write as string
+			OutputStreamWriter outputStream = new OutputStreamWriter(response.getOutputStream(), "UTF-8");
+			outputStream.write(result);
+			outputStream.close();
+		}
 	}
 
 	private void deleteApp(String target, HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -228,6 +323,7 @@ public class AppHandler extends AbstractHandler {
 		context.put("localNode", this.node.getNodeInfo());
 		context.put("appInfo", appInfo);
 		context.put("requirements", appInfo.getRequirementProperties().entrySet());
+		context.put("admission", admission.getStatistics(appName));
 
 		response.setContentType("text/html;charset=utf-8");
 		response.setStatus(HttpServletResponse.SC_OK);
@@ -237,6 +333,22 @@ public class AppHandler extends AbstractHandler {
 		outputStream.close();
 	}
 
+	/**
+	 * Short plain answer for requests rejected by admission control; no
+	 * template is rendered, so rejecting stays cheap.
+	 */
+	private void renderRejection(HttpServletRequest request, HttpServletResponse response, int status, String message) throws IOException {
+		log.warn("%s %s: %s", request.getMethod(), request.getRequestURI(), message);
+
+		response.setStatus(status);
+		response.setHeader("Retry-After", "1");
+		response.setContentType("text/plain;charset=utf-8");
+
+		OutputStreamWriter outputStream = new OutputStreamWriter(response.getOutputStream(), "UTF-8");
+		outputStream.write(message);
+		outputStream.close();
+	}
+
 	private void renderError(HttpServletRequest request, HttpServletResponse response, String message) throws IOException {
 		log.warn("%s %s: %s", request.getMethod(), request.getRequestURI(), message);
 
@@ -12,7 +12,6 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.URL;
-import java.util.Collections;
 import java.util.List;
 
 import javax.servlet.ServletException;
@@ -95,8 +94,8 @@ public class SCPServlet extends HttpServlet {
 			context.put("stopDeploymentText", stopDeploymentText);
 			context.put("resetNodeInfoText", resetNodeInfoText);
 
+			// already sorted, and must not be changed
 			List<NodeInfo> neighbors = this.node.getStrategy().getNeighbourInformations();
-			Collections.sort(neighbors);
 			context.put("knownNodes", neighbors);
 
 			response.setContentType("text/html;charset=utf-8");